@@ -3,11 +3,15 @@ package study.querydsl;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
+import study.querydsl.repository.ChangeTrackingJPAQueryFactory;
+import study.querydsl.repository.EntityChanges;
 
 import javax.persistence.EntityManager;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class HelloQuerydslApplication {
 
     public static void main(String[] args) {
@@ -15,7 +19,7 @@ public class HelloQuerydslApplication {
     }
 
     @Bean
-    public JPAQueryFactory jpaQueryFactory(EntityManager em){
-        return new JPAQueryFactory(em);
+    public JPAQueryFactory jpaQueryFactory(EntityManager em, EntityChanges changes){
+        return new ChangeTrackingJPAQueryFactory(em, changes);
     }
 }
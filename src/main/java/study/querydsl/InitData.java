@@ -1,8 +1,13 @@
 package study.querydsl;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.entity.Member;
@@ -11,16 +16,46 @@ import study.querydsl.entity.Team;
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 
+/**
+ * 샘플 데이터. 기본은 기동 중에 넣으므로 첫 요청부터 모두 보인다.
+ * fast-start 프로필에서는 기동이 끝난 뒤 별도 스레드에서 넣는다. 넣는 동안 들어온 요청은 일부만 보일 수 있다.
+ */
+@Slf4j
 @Profile("local")
 @Component
 @RequiredArgsConstructor
 public class InitData {
 
     private final InitDataService initService;
+    private final Environment environment;
 
     @PostConstruct
     public void init() {
-        initService.init();
+        if (!fastStart()) {
+            initService.init();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initAfterStartup() {
+        if (!fastStart()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                initService.init();
+                log.info("InitData 완료: {} ms", (System.nanoTime() - start) / 1_000_000);
+            } catch (RuntimeException e) {
+                log.warn("InitData 실패", e);
+            }
+        }, "member-init-data");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private boolean fastStart() {
+        return environment.acceptsProfiles(Profiles.of("fast-start"));
     }
 
     @Component
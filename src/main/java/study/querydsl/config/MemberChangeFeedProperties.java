@@ -0,0 +1,33 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.change-feed")
+public class MemberChangeFeedProperties {
+
+    /**
+     * ring buffer 에 남겨두는 이벤트 수. 이보다 뒤처진 소비자는 전체를 다시 읽어야 한다.
+     */
+    private int capacity = 10_000;
+
+    /**
+     * 한 번에 읽거나 SSE 로 내보내는 최대 이벤트 수
+     */
+    private int batchSize = 500;
+
+    /**
+     * SSE 연결 유지 시간. 끊기면 클라이언트가 Last-Event-ID 로 이어 받는다.
+     */
+    private Duration streamTimeout = Duration.ofMinutes(30);
+
+    /**
+     * 죽은 SSE 연결을 걸러내기 위한 heartbeat 주기
+     */
+    private Duration heartbeat = Duration.ofSeconds(15);
+}
@@ -0,0 +1,42 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.datasource")
+public class MemberDataSourceProperties {
+
+    /**
+     * replica.url 이 있으면 readOnly 트랜잭션을 replica 로 보낸다.
+     */
+    private final Replica replica = new Replica();
+
+    /**
+     * 복제 지연이 이보다 크면 읽기도 primary 로 보낸다.
+     */
+    private Duration maxLag = Duration.ofSeconds(1);
+
+    /**
+     * primary 에 heartbeat 를 쓰고 replica 에서 읽어 지연을 재는 주기
+     */
+    private Duration heartbeatInterval = Duration.ofMillis(200);
+
+    @Getter
+    @Setter
+    public static class Replica {
+
+        private String url;
+        private String username = "sa";
+        private String password = "";
+
+        /**
+         * 비어 있으면 primary 풀과 같은 크기
+         */
+        private Integer maximumPoolSize;
+    }
+}
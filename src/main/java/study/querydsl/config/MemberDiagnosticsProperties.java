@@ -0,0 +1,26 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.diagnostics")
+public class MemberDiagnosticsProperties {
+
+    /**
+     * MemberRepositoryImpl 이 실행한 SQL 을 fingerprint 별로 모으고 /actuator/sqlfingerprints 를 등록할지 여부 (opt-in)
+     */
+    private boolean sqlFingerprints = false;
+
+    /**
+     * fingerprint 의 플랜을 EXPLAIN ANALYZE 로 구할지 여부. 캡처한 SQL 을 실제 바인드 값으로 다시 실행하므로 운영에서는 켜지 않는다.
+     */
+    private boolean explain = false;
+
+    /**
+     * 이보다 많은 fingerprint 는 버리고 dropped 로만 센다. 조건 조합이 16 가지라 보통은 넘지 않는다.
+     */
+    private int maxFingerprints = 500;
+}
@@ -0,0 +1,47 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.execution")
+public class MemberExecutionProperties {
+
+    private Mode mode = Mode.SERVLET;
+
+    /**
+     * 가능한 JDK(21+) 라면 가상 스레드를 사용한다.
+     */
+    private boolean virtualThreads = true;
+
+    /**
+     * 가상 스레드를 쓸 수 없을 때 사용하는 플랫폼 스레드 풀 크기
+     */
+    private int platformThreads = 64;
+    private int queueCapacity = 512;
+
+    /**
+     * 동시에 DB 를 사용할 수 있는 검색 수. 지정하지 않으면 커넥션 풀 크기를 사용한다.
+     */
+    private Integer maxConcurrentQueries;
+
+    /**
+     * 이 시간 안에 실행 허가를 얻지 못하면 503 으로 응답한다.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(1);
+
+    public enum Mode {
+        /**
+         * 서블릿 스레드에서 그대로 실행 (기존 동작)
+         */
+        SERVLET,
+        /**
+         * 별도 executor 로 넘겨 비동기로 실행
+         */
+        EXECUTOR
+    }
+}
@@ -0,0 +1,29 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.export")
+public class MemberExportProperties {
+
+    /**
+     * 동시에 스캔하는 파티션 수 (= 동시에 사용하는 커넥션 수). 커넥션 풀 크기보다 작게 둔다.
+     */
+    private int threads = 4;
+
+    private int defaultPartitions = 4;
+    private int maxPartitions = 64;
+
+    /**
+     * 파티션 안에서 한 번에 읽는 row 수 (id keyset 으로 이어 읽는다)
+     */
+    private int chunkSize = 1_000;
+
+    /**
+     * 소비되지 않은 chunk 를 파티션(또는 unordered 모드 전체)당 몇 개까지 쌓아둘지
+     */
+    private int queueCapacity = 4;
+}
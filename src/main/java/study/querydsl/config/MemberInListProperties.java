@@ -0,0 +1,22 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.in-list")
+public class MemberInListProperties {
+
+    /**
+     * 목록 하나가 IN 한 번의 최대 크기(256)를 넘고 이 크기 이하면, 페이징 없는 검색은 나눠서 동시에 조회한다.
+     * 더 크거나 페이지/count 조회면 in_list_value 에 써 두고 서브쿼리로 join 한다.
+     */
+    private int chunkedMaxSize = 4_096;
+
+    /**
+     * 나눠서 조회할 때 동시에 실행하는 쿼리 수
+     */
+    private int parallelism = 4;
+}
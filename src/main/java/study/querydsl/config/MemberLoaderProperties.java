@@ -0,0 +1,25 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.loader")
+public class MemberLoaderProperties {
+
+    /**
+     * 단건 조회를 모으는 시간
+     */
+    private Duration window = Duration.ofMillis(2);
+
+    /**
+     * 이만큼 모이면 시간 창을 기다리지 않고 바로 조회한다.
+     */
+    private int maxBatchSize = 100;
+
+    private int threads = 2;
+}
@@ -0,0 +1,46 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.outbox")
+public class MemberOutboxProperties {
+
+    /**
+     * false 면 변경이 outbox 에 쓰이지 않는다.
+     */
+    private boolean enabled = true;
+
+    /**
+     * false 면 dispatcher 가 스스로 polling 하지 않는다.
+     */
+    private boolean dispatchEnabled = true;
+
+    /**
+     * 밀린 이벤트가 없을 때 다음 polling 까지 기다리는 시간. 배치가 가득 차면 기다리지 않고 바로 다시 읽는다.
+     */
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    private int batchSize = 100;
+
+    /**
+     * 한 배치 안에서 동시에 내보내는 aggregate 수. 같은 aggregate 의 이벤트는 항상 순서대로 하나씩 보낸다.
+     */
+    private int parallelism = 4;
+
+    /**
+     * 실패하면 initialBackoff * 2^(attempts-1) 뒤에 다시 시도한다. (최대 maxBackoff, ±20% jitter)
+     */
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofMinutes(1);
+
+    /**
+     * 내보낸 이벤트를 이 시간이 지나면 지운다.
+     */
+    private Duration retention = Duration.ofHours(1);
+}
@@ -0,0 +1,41 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.prefetch")
+public class MemberPrefetchProperties {
+
+    /**
+     * 다음 페이지를 미리 조회할지 여부 (opt-in)
+     */
+    private boolean enabled = false;
+
+    private int threads = 2;
+    private int queueCapacity = 16;
+
+    /**
+     * 캐시에 보관할 최대 prefetch 수. 넘치면 가장 오래된 것부터 취소한다.
+     */
+    private int maxEntries = 128;
+
+    /**
+     * 이 크기보다 큰 페이지는 prefetch 하지 않는다.
+     */
+    private int maxPageSize = 100;
+
+    /**
+     * 클라이언트가 이 시간 안에 다음 페이지를 요청하지 않으면 prefetch 를 취소한다.
+     */
+    private Duration ttl = Duration.ofSeconds(10);
+
+    /**
+     * 아직 진행중인 prefetch 를 기다리는 최대 시간
+     */
+    private Duration joinTimeout = Duration.ofMillis(200);
+}
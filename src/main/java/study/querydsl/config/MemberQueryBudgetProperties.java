@@ -0,0 +1,34 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.query-budget")
+public class MemberQueryBudgetProperties {
+
+    /**
+     * 요청 하나가 쓸 수 있는 전체 시간. 요청 안의 쿼리들은 남은 시간만큼만 timeout 을 받는다.
+     */
+    private Duration requestTimeout = Duration.ofSeconds(5);
+
+    private Duration searchTimeout = Duration.ofSeconds(3);
+    private Duration pageTimeout = Duration.ofSeconds(2);
+    private Duration countTimeout = Duration.ofSeconds(2);
+
+    private int maxPageSize = 100;
+
+    /**
+     * 페이징 없는 search 가 반환할 수 있는 최대 row 수
+     */
+    private int maxRows = 1_000;
+
+    /**
+     * searchAll 한 번에 받을 수 있는 최대 조건 수
+     */
+    private int maxBatchSize = 50;
+}
@@ -0,0 +1,37 @@
+package study.querydsl.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberRepositoryCustom;
+import study.querydsl.repository.MemberShardedRepository;
+import study.querydsl.repository.MemberSqlRepository;
+
+/**
+ * MemberRepositoryCustom 을 주입받는 곳(컨트롤러, prefetcher)에 member.repository.mode 에 맞는 구현을 넘긴다.
+ */
+@Configuration
+public class MemberReadRepositoryConfiguration {
+
+    @Bean
+    @Primary
+    public MemberRepositoryCustom memberReadRepository(MemberRepositoryProperties properties,
+                                                       MemberRepository jpaRepository,
+                                                       MemberSqlRepository sqlRepository,
+                                                       ObjectProvider<MemberShardedRepository> shardedRepository) {
+        switch (properties.getMode()) {
+            case SQL:
+                return sqlRepository;
+            case SHARDED:
+                MemberShardedRepository sharded = shardedRepository.getIfAvailable();
+                if (sharded == null) {
+                    throw new IllegalStateException("member.repository.mode=sharded requires member.sharding.shards");
+                }
+                return sharded;
+            default:
+                return jpaRepository;
+        }
+    }
+}
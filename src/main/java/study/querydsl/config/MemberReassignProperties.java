@@ -0,0 +1,25 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.reassign")
+public class MemberReassignProperties {
+
+    /**
+     * 버전 충돌 시 처음 시도를 포함한 최대 시도 횟수
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * n 번째 충돌 뒤에는 0 ~ min(maxBackoff, initialBackoff * 2^(n-1)) 사이에서 무작위로 기다린다 (full jitter).
+     * 같이 충돌한 트랜잭션들이 같은 시점에 다시 부딪히지 않게 흩어 놓는다.
+     */
+    private Duration initialBackoff = Duration.ofMillis(5);
+    private Duration maxBackoff = Duration.ofMillis(200);
+}
@@ -0,0 +1,62 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.repository")
+public class MemberRepositoryProperties {
+
+    /**
+     * 검색(/v1, /v2)에 사용할 구현
+     */
+    private Mode mode = Mode.JPA;
+
+    /**
+     * false 면 RepositoryMetricsAspect 를 등록하지 않는다.
+     */
+    private boolean metricsEnabled = true;
+
+    /**
+     * MemberRepositoryImpl 의 페이지 내용 조회 방식
+     */
+    private PageFetch pageFetch = PageFetch.SINGLE;
+
+    /**
+     * pageFetch=auto 일 때 offset 이 이 값 이상이면 ID_FIRST 로 조회한다.
+     */
+    private long idFirstMinOffset = 1_000;
+
+    public enum Mode {
+        /**
+         * JPAQueryFactory (JPQL) - MemberRepositoryImpl
+         */
+        JPA,
+        /**
+         * SQLQueryFactory (plain JDBC) - MemberSqlRepository
+         */
+        SQL,
+        /**
+         * member.sharding.shards 에 나눠 둔 회원을 조회 - MemberShardedRepository.
+         * 검색만 shard 로 가고 쓰기는 기본 datasource 로 가므로, shard 는 외부에서 적재해 둔 읽기 전용 데이터여야 한다.
+         */
+        SHARDED
+    }
+
+    public enum PageFetch {
+        /**
+         * join 한 전체 행을 정렬/페이징해서 한 번에 가져온다.
+         */
+        SINGLE,
+        /**
+         * id 만 정렬/페이징한 뒤 그 id 들의 행을 가져온다. 깊은 페이지에서 버려지는 행을 읽지 않는다.
+         */
+        ID_FIRST,
+        /**
+         * offset 이 idFirstMinOffset 이상이면 ID_FIRST, 아니면 SINGLE
+         */
+        AUTO
+    }
+}
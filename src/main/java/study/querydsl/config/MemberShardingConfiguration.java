@@ -0,0 +1,29 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydsl.repository.MemberQueryBudget;
+import study.querydsl.repository.MemberShardedRepository;
+import study.querydsl.repository.MemberShards;
+
+/**
+ * member.sharding.shards 가 있을 때만 shard 풀과 MemberShardedRepository 를 만든다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "member.sharding.shards[0]", name = "url")
+public class MemberShardingConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public MemberShards memberShards(MemberShardingProperties properties,
+                                     com.querydsl.sql.Configuration querydslSqlConfiguration,
+                                     MeterRegistry registry) {
+        return new MemberShards(properties, querydslSqlConfiguration, registry);
+    }
+
+    @Bean
+    public MemberShardedRepository memberShardedRepository(MemberShards shards, MemberQueryBudget budget) {
+        return new MemberShardedRepository(shards, budget);
+    }
+}
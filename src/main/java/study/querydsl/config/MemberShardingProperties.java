@@ -0,0 +1,34 @@
+package study.querydsl.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "member.sharding")
+public class MemberShardingProperties {
+
+    /**
+     * 회원은 team id % shards.size() 번째 shard 에 둔다. 순서를 바꾸거나 개수를 바꾸면 데이터를 다시 배치해야 한다.
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    /**
+     * scatter/gather 에 쓰는 스레드 수
+     */
+    private int threads = 8;
+
+    @Getter
+    @Setter
+    public static class Shard {
+
+        private String url;
+        private String username = "sa";
+        private String password = "";
+        private int maximumPoolSize = 4;
+    }
+}
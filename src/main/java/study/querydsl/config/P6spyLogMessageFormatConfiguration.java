@@ -2,9 +2,14 @@ package study.querydsl.config;
 
 import com.p6spy.engine.spy.P6SpyOptions;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 import javax.annotation.PostConstruct;
 
+/**
+ * 다른 빈이 주입받지 않으므로 lazy-initialization(fast-start) 에서도 기동 때 만들어지도록 @Lazy(false).
+ */
+@Lazy(false)
 @Configuration
 public class P6spyLogMessageFormatConfiguration {
 
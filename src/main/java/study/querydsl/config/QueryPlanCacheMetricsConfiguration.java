@@ -0,0 +1,36 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate 쿼리 플랜(JPQL -> SQL) 캐시 적중률. JDBC statement 캐시가 아니다.
+ * 통계를 켠 경우(prod 의 hibernate.generate_statistics)에만 값이 쌓이므로 그때만 등록한다.
+ * hit/miss 카운터 자체는 hibernate-micrometer 가 hibernate.cache.query.plan 으로 노출한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.generate_statistics", havingValue = "true")
+public class QueryPlanCacheMetricsConfiguration {
+
+    @Bean
+    public MeterBinder queryPlanCacheMetrics(EntityManagerFactory emf) {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        return registry -> Gauge.builder("hibernate.query.plan.cache.hit.ratio", statistics,
+                        QueryPlanCacheMetricsConfiguration::hitRatio)
+                .description("Hit ratio of the Hibernate query plan cache")
+                .register(registry);
+    }
+
+    private static double hitRatio(Statistics statistics) {
+        long hit = statistics.getQueryPlanCacheHitCount();
+        long total = hit + statistics.getQueryPlanCacheMissCount();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydsl.config;
+
+import com.querydsl.sql.H2Templates;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.SQLTemplates;
+import com.querydsl.sql.spring.SpringConnectionProvider;
+import com.querydsl.sql.spring.SpringExceptionTranslator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class QuerydslSqlConfiguration {
+
+    @Bean
+    public com.querydsl.sql.Configuration querydslSqlConfiguration() {
+        SQLTemplates templates = H2Templates.builder().build();
+        com.querydsl.sql.Configuration configuration = new com.querydsl.sql.Configuration(templates);
+        configuration.setExceptionTranslator(new SpringExceptionTranslator());
+        return configuration;
+    }
+
+    /**
+     * SpringConnectionProvider 는 트랜잭션에 묶인 커넥션만 사용하므로 @Transactional 안에서 써야 한다.
+     */
+    @Bean
+    public SQLQueryFactory sqlQueryFactory(DataSource dataSource, com.querydsl.sql.Configuration querydslSqlConfiguration) {
+        return new SQLQueryFactory(querydslSqlConfiguration, new SpringConnectionProvider(dataSource));
+    }
+}
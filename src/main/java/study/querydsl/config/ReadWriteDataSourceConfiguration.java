@@ -0,0 +1,74 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import study.querydsl.repository.DataVersions;
+
+import javax.sql.DataSource;
+
+/**
+ * member.datasource.replica.url 이 있을 때 spring.datasource(primary) 와 replica 를 readOnly 여부로 라우팅한다.
+ * <p>
+ * 두 풀은 빈으로 등록하지 않는다. p6spy 가 DataSource 빈마다 감싸므로 라우팅 빈과 대상 풀이 모두 빈이면 SQL 이 두 번 찍힌다.
+ * 대신 풀 생명주기는 ReplicatedDataSources 가 관리하고 Hikari 메트릭은 풀 이름으로 직접 등록한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "member.datasource.replica", name = "url")
+public class ReadWriteDataSourceConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public ReplicatedDataSources replicatedDataSources(DataSourceProperties primaryProperties,
+                                                       MemberDataSourceProperties properties,
+                                                       Environment environment,
+                                                       MeterRegistry registry) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("member-primary");
+        }
+        primary.setMetricRegistry(registry);
+
+        MemberDataSourceProperties.Replica replicaProperties = properties.getReplica();
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("member-replica");
+        replica.setJdbcUrl(replicaProperties.getUrl());
+        replica.setUsername(replicaProperties.getUsername());
+        replica.setPassword(replicaProperties.getPassword());
+        replica.setDriverClassName(primaryProperties.determineDriverClassName());
+        replica.setMaximumPoolSize(replicaProperties.getMaximumPoolSize() != null
+                ? replicaProperties.getMaximumPoolSize()
+                : primary.getMaximumPoolSize());
+        replica.setReadOnly(true);
+        replica.setMetricRegistry(registry);
+
+        ReplicaLagMonitor lagMonitor = new ReplicaLagMonitor(primary, replica);
+        lagMonitor.start(properties.getHeartbeatInterval());
+        Gauge.builder("member.datasource.replica.lag", lagMonitor,
+                        monitor -> monitor.lagMillis() == Long.MAX_VALUE ? Double.NaN : monitor.lagMillis())
+                .description("Replica lag in milliseconds measured by heartbeat")
+                .baseUnit("milliseconds")
+                .register(registry);
+
+        return new ReplicatedDataSources(primary, replica, lagMonitor);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicatedDataSources dataSources, MemberDataSourceProperties properties,
+                                 MeterRegistry registry, DataVersions versions) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(
+                dataSources.getPrimary(), dataSources.getReplica(), dataSources.getLagMonitor(), properties, registry,
+                versions::lastModified);
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,75 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import static study.querydsl.config.ReadWriteRoutingDataSource.Route.PRIMARY;
+import static study.querydsl.config.ReadWriteRoutingDataSource.Route.REPLICA;
+
+/**
+ * readOnly 트랜잭션은 replica, 나머지는 primary 로 보낸다.
+ * <p>
+ * 트랜잭션의 readOnly 플래그는 커넥션을 얻은 뒤에 세팅되므로 LazyConnectionDataSourceProxy 로 감싸서
+ * 첫 statement 시점에 커넥션을 고르게 해야 한다.
+ * replica 가 마지막 데이터 변경(DataVersions) 이후에 쓴 heartbeat 를 아직 복제하지 못했거나, 지연이 maxLag 를 넘으면
+ * 읽기도 primary 로 보낸다. 그래서 검색 응답의 ETag 는 항상 그 버전을 반영한 데이터와 같이 나가고,
+ * 어느 스레드/요청에서 읽든 커밋된 쓰기가 보인다.
+ * 라우팅 결과는 member.datasource.route{route, reason} 으로 센다.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final MemberDataSourceProperties properties;
+    private final MeterRegistry registry;
+    private final LongSupplier lastChangeAt;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                      MemberDataSourceProperties properties, MeterRegistry registry,
+                                      LongSupplier lastChangeAt) {
+        this.lagMonitor = lagMonitor;
+        this.properties = properties;
+        this.registry = registry;
+        this.lastChangeAt = lastChangeAt;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return routed(PRIMARY, "no_transaction");
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return routed(PRIMARY, "write");
+        }
+        if (lagMonitor.replicatedAt() <= lastChangeAt.getAsLong()) {
+            return routed(PRIMARY, "replica_behind");
+        }
+        if (lagMonitor.lagMillis() > properties.getMaxLag().toMillis()) {
+            return routed(PRIMARY, "replica_lag");
+        }
+        return routed(REPLICA, "read");
+    }
+
+    private Route routed(Route route, String reason) {
+        counters.computeIfAbsent(route + ":" + reason, key -> Counter.builder("member.datasource.route")
+                        .tag("route", route.name().toLowerCase())
+                        .tag("reason", reason)
+                        .register(registry))
+                .increment();
+        return route;
+    }
+}
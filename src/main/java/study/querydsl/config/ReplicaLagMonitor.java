@@ -0,0 +1,74 @@
+package study.querydsl.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * primary 의 replica_heartbeat 에 현재 시각을 쓰고, replica 에 복제된 값을 읽어 지연을 잰다.
+ * 지연 = 지금 - replica 가 가진 마지막 heartbeat 이므로 heartbeat 주기만큼은 늘 더해진다.
+ * replica 에서 한 번도 읽지 못했으면 지연을 알 수 없으므로 무한대로 본다.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile long replicaBeatAt;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start(Duration interval) {
+        primary.execute("create table if not exists replica_heartbeat (id int primary key, beat_at bigint not null)");
+        scheduler.scheduleWithFixedDelay(this::beat, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * replica 가 가진 마지막 heartbeat 를 primary 에 쓴 시각. 이 시각 이전에 커밋된 변경은 replica 에도 있다. 모르면 0
+     */
+    public long replicatedAt() {
+        return replicaBeatAt;
+    }
+
+    public long lagMillis() {
+        long beatAt = replicaBeatAt;
+        return beatAt == 0 ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - beatAt);
+    }
+
+    void beat() {
+        try {
+            primary.update("merge into replica_heartbeat key (id) values (1, ?)", System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            log.debug("primary heartbeat 실패: {}", e.toString());
+        }
+        try {
+            Long beatAt = replica.queryForObject("select beat_at from replica_heartbeat where id = 1", Long.class);
+            if (beatAt != null) {
+                replicaBeatAt = beatAt;
+            }
+        } catch (DataAccessException e) {
+            log.debug("replica heartbeat 조회 실패: {}", e.toString());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
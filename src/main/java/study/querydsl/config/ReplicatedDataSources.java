@@ -0,0 +1,24 @@
+package study.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 라우팅 대상 풀과 지연 모니터. 컨텍스트가 내려갈 때 함께 닫는다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ReplicatedDataSources implements AutoCloseable {
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final ReplicaLagMonitor lagMonitor;
+
+    @Override
+    public void close() {
+        lagMonitor.close();
+        replica.close();
+        primary.close();
+    }
+}
@@ -0,0 +1,200 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 회원 repository 의 public 메서드 지연 시간과 결과 행 수.
+ * <pre>
+ * member.repository.calls        timer    class, method, shape, outcome
+ * member.repository.result.size  summary  class, method
+ * </pre>
+ * shape 는 MemberSearchCondition 에서 값이 있는 필드 조합(username+teamName+ageGoe+ageLoe+usernames+memberIds, 최대 64가지. 목록은 비어 있지 않을 때)이고,
+ * 값이 하나도 없으면 empty, 조건 목록은 batch, 조건을 받지 않는 메서드는 none 이다. 조건 값 자체는 태그에 넣지 않는다.
+ * Meter 는 (클래스, 메서드) 별로 처음 호출될 때 만들어 두고 이후에는 배열에서 꺼내 쓴다.
+ * 히스토그램은 management.metrics.distribution.percentiles-histogram.member.repository 로 켠다.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "member.repository", name = "metrics-enabled", matchIfMissing = true)
+public class RepositoryMetricsAspect {
+
+    private static final String[] FIELDS = {"username", "teamName", "ageGoe", "ageLoe", "usernames", "memberIds"};
+    private static final int BATCH = 1 << FIELDS.length;
+    private static final int NONE = BATCH + 1;
+    private static final String[] SHAPES = shapes();
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<MethodKey, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * study.querydsl.repository.MemberRepositoryImpl.*(..))"
+            + " || execution(public * study.querydsl.repository.MemberSqlRepository.*(..))"
+            + " || execution(public * study.querydsl.repository.MemberShardedRepository.*(..))"
+            + " || execution(public * study.querydsl.repository.MemberJpaRepository.*(..))")
+    public Object record(ProceedingJoinPoint pjp) throws Throwable {
+        Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+        MethodMeters methodMeters = meters.computeIfAbsent(new MethodKey(pjp.getTarget().getClass(), method),
+                key -> new MethodMeters(key.type.getSimpleName(), key.method.getName()));
+        int shape = shapeOf(pjp.getArgs());
+
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = pjp.proceed();
+        } catch (Throwable e) {
+            methodMeters.timer(shape, false).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+
+        if (result instanceof CompletionStage) {
+            return ((CompletionStage<?>) result).whenComplete((value, error) -> methodMeters.record(shape, start, value, error));
+        }
+        methodMeters.record(shape, start, result, null);
+        return result;
+    }
+
+    static int shapeOf(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition) {
+                MemberSearchCondition cond = (MemberSearchCondition) arg;
+                return (cond.getUsername() != null ? 1 : 0)
+                        | (cond.getTeamName() != null ? 2 : 0)
+                        | (cond.getAgeGoe() != null ? 4 : 0)
+                        | (cond.getAgeLoe() != null ? 8 : 0)
+                        | (cond.getUsernames() != null && !cond.getUsernames().isEmpty() ? 16 : 0)
+                        | (cond.getMemberIds() != null && !cond.getMemberIds().isEmpty() ? 32 : 0);
+            }
+            if (arg instanceof List && !((List<?>) arg).isEmpty() && ((List<?>) arg).get(0) instanceof MemberSearchCondition) {
+                return BATCH;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 결과가 조건별 목록(searchAll)이면 전체 행 수.
+     */
+    static long sizeOf(Object result) {
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Collection) {
+            long rows = 0;
+            for (Object element : (Collection<?>) result) {
+                if (!(element instanceof Collection)) {
+                    return ((Collection<?>) result).size();
+                }
+                rows += ((Collection<?>) element).size();
+            }
+            return rows;
+        }
+        return -1;
+    }
+
+    private static String[] shapes() {
+        String[] shapes = new String[NONE + 1];
+        for (int mask = 0; mask < BATCH; mask++) {
+            StringBuilder shape = new StringBuilder();
+            for (int i = 0; i < FIELDS.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    shape.append(shape.length() == 0 ? "" : "+").append(FIELDS[i]);
+                }
+            }
+            shapes[mask] = shape.length() == 0 ? "empty" : shape.toString();
+        }
+        shapes[BATCH] = "batch";
+        shapes[NONE] = "none";
+        return shapes;
+    }
+
+    private class MethodMeters {
+
+        private final String type;
+        private final String method;
+        private final AtomicReferenceArray<Timer> timers = new AtomicReferenceArray<>(SHAPES.length * 2);
+        private final DistributionSummary resultSize;
+
+        MethodMeters(String type, String method) {
+            this.type = type;
+            this.method = method;
+            this.resultSize = DistributionSummary.builder("member.repository.result.size")
+                    .baseUnit("rows")
+                    .tags("class", type, "method", method)
+                    .register(registry);
+        }
+
+        void record(int shape, long start, Object result, Throwable error) {
+            timer(shape, error == null).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (error == null) {
+                long size = sizeOf(result);
+                if (size >= 0) {
+                    resultSize.record(size);
+                }
+            }
+        }
+
+        Timer timer(int shape, boolean success) {
+            int index = shape * 2 + (success ? 0 : 1);
+            Timer timer = timers.get(index);
+            if (timer == null) {
+                timer = Timer.builder("member.repository.calls")
+                        .tags("class", type, "method", method, "shape", SHAPES[shape], "outcome", success ? "success" : "error")
+                        .register(registry);
+                timers.set(index, timer);
+            }
+            return timer;
+        }
+    }
+
+    private static class MethodKey {
+
+        private final Class<?> type;
+        private final Method method;
+
+        MethodKey(Class<?> type, Method method) {
+            this.type = type;
+            this.method = method;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) o;
+            return type == other.type && method.equals(other.method);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, method);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * MemberRepositoryImpl 호출 안에서 실행된 SQL 을 StatementFingerprints 에 "MemberRepositoryImpl.메서드" 로 기록하게 한다.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "member.diagnostics", name = "sql-fingerprints")
+@RequiredArgsConstructor
+public class StatementFingerprintAspect {
+
+    private final StatementFingerprints fingerprints;
+
+    @Around("execution(public * study.querydsl.repository.MemberRepositoryImpl.*(..))")
+    public Object capture(ProceedingJoinPoint pjp) throws Throwable {
+        String outer = fingerprints.enter("MemberRepositoryImpl." + pjp.getSignature().getName());
+        try {
+            return pjp.proceed();
+        } finally {
+            fingerprints.exit(outer);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package study.querydsl.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GET /actuator/sqlfingerprints?explain=true 로 fingerprint 별 빈도, 지연 시간, 플랜을 본다. DELETE 로 초기화.
+ * 플랜은 member.diagnostics.explain 이 켜진 환경에서만 구한다. 인증이 없으므로 운영 프로필에서는 노출하지 않는다.
+ */
+@Component
+@Endpoint(id = "sqlfingerprints")
+@ConditionalOnProperty(prefix = "member.diagnostics", name = "sql-fingerprints")
+@RequiredArgsConstructor
+public class StatementFingerprintEndpoint {
+
+    private final StatementFingerprints fingerprints;
+
+    @ReadOperation
+    public Map<String, Object> report(@Nullable Boolean explain) {
+        List<StatementFingerprints.Snapshot> report = fingerprints.report();
+        if (Boolean.TRUE.equals(explain)) {
+            report.forEach(snapshot -> fingerprints.explain(snapshot.getFingerprint()));
+            report = fingerprints.report();
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("dropped", fingerprints.dropped());
+        body.put("fingerprints", report);
+        return body;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        fingerprints.reset();
+    }
+}
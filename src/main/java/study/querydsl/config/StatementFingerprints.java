@@ -0,0 +1,231 @@
+package study.querydsl.config;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 조건 조합마다 SQL 이 달라지고 그만큼 플랜도 따로 생긴다. 어떤 모양이 얼마나 자주, 얼마나 오래 실행되는지 모은다.
+ * <p>
+ * p6spy listener 로 모든 statement 를 보지만, {@link #enter} 와 {@link #exit} 사이에서 실행된 것
+ * (= StatementFingerprintAspect 가 감싼 MemberRepositoryImpl 호출)만 기록한다. fingerprint 는 리터럴과 IN 목록 길이를 지운 SQL 이고,
+ * 플랜은 마지막으로 실행된 SQL 과 바인드 값을 PreparedStatement 로 EXPLAIN ANALYZE 해서 처음 조회할 때 한 번만 구한다.
+ * 바인드 값은 회원 이름 같은 실제 데이터이므로 메모리에만 두고 report 에는 싣지 않는다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "member.diagnostics", name = "sql-fingerprints")
+public class StatementFingerprints extends SimpleJdbcEventListener {
+
+    private static final ThreadLocal<String> SOURCE = new ThreadLocal<>();
+    private static final ThreadLocal<Bindings> BINDINGS = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("in\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final JdbcTemplate jdbc;
+    private final MemberDiagnosticsProperties properties;
+
+    private final ConcurrentMap<String, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    public StatementFingerprints(JdbcTemplate jdbc, MemberDiagnosticsProperties properties) {
+        this.jdbc = jdbc;
+        this.properties = properties;
+    }
+
+    /**
+     * 이미 다른 source 안이면 바깥 source 를 유지한다. 반환값을 {@link #exit} 에 넘긴다.
+     */
+    public String enter(String source) {
+        String outer = SOURCE.get();
+        if (outer == null) {
+            SOURCE.set(source);
+        }
+        return outer;
+    }
+
+    public void exit(String outer) {
+        if (outer == null) {
+            SOURCE.remove();
+            BINDINGS.remove();
+        }
+    }
+
+    /**
+     * source 안에서 PreparedStatement 에 바인드하는 값을 statement 별로 모은다.
+     */
+    @Override
+    public void onAfterPreparedStatementSet(PreparedStatementInformation statementInformation, int parameterIndex,
+                                            Object value, SQLException e) {
+        if (SOURCE.get() == null) {
+            return;
+        }
+        Bindings bindings = BINDINGS.get();
+        if (bindings == null || bindings.statement != statementInformation) {
+            bindings = new Bindings(statementInformation);
+            BINDINGS.set(bindings);
+        }
+        bindings.values.put(parameterIndex, value);
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String source = SOURCE.get();
+        if (source == null || statementInformation.getSql() == null) {
+            return;
+        }
+        String key = fingerprint(statementInformation.getSql());
+        Fingerprint fingerprint = fingerprints.get(key);
+        if (fingerprint == null) {
+            if (fingerprints.size() >= properties.getMaxFingerprints()) {
+                dropped.increment();
+                return;
+            }
+            fingerprint = fingerprints.computeIfAbsent(key, Fingerprint::new);
+        }
+        fingerprint.record(source, statementInformation.getSql(), bindValues(statementInformation), timeElapsedNanos);
+    }
+
+    private static List<Object> bindValues(StatementInformation statementInformation) {
+        Bindings bindings = BINDINGS.get();
+        if (bindings == null || bindings.statement != statementInformation) {
+            return List.of();
+        }
+        return new ArrayList<>(bindings.values.values());
+    }
+
+    static String fingerprint(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        return IN_LIST.matcher(normalized).replaceAll("in (?+)");
+    }
+
+    /**
+     * 실행 시간 합계가 큰 순서.
+     */
+    public List<Snapshot> report() {
+        List<Snapshot> report = new ArrayList<>();
+        for (Fingerprint fingerprint : fingerprints.values()) {
+            report.add(fingerprint.snapshot());
+        }
+        report.sort(Comparator.comparingDouble(Snapshot::getTotalMillis).reversed());
+        return report;
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public void reset() {
+        fingerprints.clear();
+        dropped.reset();
+    }
+
+    /**
+     * EXPLAIN ANALYZE 는 실제로 쿼리를 실행하므로 fingerprint 마다 한 번만 하고 결과를 보관한다.
+     * 값은 SQL 에 이어 붙이지 않고 바인드한다. member.diagnostics.explain 이 꺼져 있으면 실행하지 않고 null.
+     */
+    public String explain(String key) {
+        Fingerprint fingerprint = fingerprints.get(key);
+        if (fingerprint == null || !properties.isExplain()) {
+            return null;
+        }
+        String plan = fingerprint.plan;
+        if (plan == null) {
+            try {
+                plan = jdbc.query("explain analyze " + fingerprint.sample,
+                        rs -> rs.next() ? rs.getString(1) : null, fingerprint.sampleValues.toArray());
+            } catch (RuntimeException e) {
+                plan = "explain failed: " + e.getMessage();
+            }
+            fingerprint.plan = plan;
+        }
+        return plan;
+    }
+
+    private static class Fingerprint {
+
+        private final String sql;
+        private final Set<String> sources = ConcurrentHashMap.newKeySet();
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private volatile String sample;
+        private volatile List<Object> sampleValues = List.of();
+        private volatile String plan;
+
+        Fingerprint(String sql) {
+            this.sql = sql;
+        }
+
+        void record(String source, String sql, List<Object> values, long nanos) {
+            sources.add(source);
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            sample = sql;
+            sampleValues = values;
+        }
+
+        Snapshot snapshot() {
+            long calls = count.sum();
+            double total = totalNanos.sum() / 1e6;
+            return new Snapshot(sql, List.copyOf(sources), calls, total, calls == 0 ? 0 : total / calls,
+                    maxNanos.get() / 1e6, sample, plan);
+        }
+    }
+
+    private static class Bindings {
+
+        private final StatementInformation statement;
+        private final Map<Integer, Object> values = new TreeMap<>();
+
+        Bindings(StatementInformation statement) {
+            this.statement = statement;
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Snapshot {
+
+        private final String fingerprint;
+        private final List<String> sources;
+        private final long count;
+        private final double totalMillis;
+        private final double meanMillis;
+        private final double maxMillis;
+
+        /**
+         * 마지막으로 실행된 SQL. 바인드 값은 빼고 ? 그대로 둔다.
+         */
+        private final String sample;
+
+        /**
+         * 아직 explain 하지 않았으면 null
+         */
+        private final String plan;
+    }
+}
@@ -0,0 +1,145 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import study.querydsl.config.MemberChangeFeedProperties;
+import study.querydsl.dto.ChangeEvent;
+import study.querydsl.dto.ChangeFeedPage;
+import study.querydsl.repository.ChangeFeed;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ChangeFeed 를 SSE 로 내보낸다.
+ * <p>
+ * 커밋한 스레드를 붙잡지 않도록 전송은 전용 스레드 하나에서 한다. 구독자마다 한 번에 batchSize 만큼만 보내고
+ * 남은 것은 다음 차례로 넘겨 느린 소비자 하나가 다른 구독자를 오래 막지 않게 한다.
+ * 이벤트 id 는 offset 이므로 브라우저 EventSource 는 재연결 시 Last-Event-ID 로 자동으로 이어 받는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChangeFeedStreams {
+
+    private final ChangeFeed feed;
+    private final MemberChangeFeedProperties properties;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "change-feed-sse");
+            thread.setDaemon(true);
+            return thread;
+        });
+        feed.addListener(this::wakeUp);
+        long heartbeat = properties.getHeartbeat().toMillis();
+        executor.scheduleAtFixedRate(this::heartbeat, heartbeat, heartbeat, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+    }
+
+    public SseEmitter subscribe(long from) {
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        Subscription subscription = new Subscription(emitter, from);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(e -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+        wakeUp();
+        return emitter;
+    }
+
+    private void wakeUp() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        scheduled.set(false);
+        boolean more = false;
+        for (Subscription subscription : subscriptions) {
+            more |= subscription.sendNext();
+        }
+        if (more) {
+            wakeUp();
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscription subscription : subscriptions) {
+            subscription.send(SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    private class Subscription {
+
+        private final SseEmitter emitter;
+        private long cursor;
+
+        Subscription(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        /**
+         * @return 아직 보낼 이벤트가 남았으면 true
+         */
+        boolean sendNext() {
+            ChangeFeedPage page = feed.read(cursor, properties.getBatchSize());
+            if (page.isTruncated()) {
+                if (send(SseEmitter.event().name("reset").data(page, MediaType.APPLICATION_JSON))) {
+                    emitter.complete();
+                }
+                subscriptions.remove(this);
+                return false;
+            }
+            for (ChangeEvent event : page.getEvents()) {
+                if (!send(SseEmitter.event()
+                        .id(String.valueOf(event.getOffset()))
+                        .name("change")
+                        .data(event, MediaType.APPLICATION_JSON))) {
+                    return false;
+                }
+                cursor = event.getOffset() + 1;
+            }
+            return page.getNextOffset() < feed.nextOffset();
+        }
+
+        boolean send(SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("change feed 구독 종료: {}", e.toString());
+                subscriptions.remove(this);
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+}
@@ -1,33 +1,144 @@
 package study.querydsl.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.querydsl.dto.ChangeFeedPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SlimPage;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.ChangeFeed;
+import study.querydsl.repository.DataVersions;
 import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberPagePrefetcher;
+import study.querydsl.repository.MemberPartitionedExporter;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberRepositoryCustom;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
 //    private final MemberJpaRepository repository;
-    private final MemberRepository repository;
+//    private final MemberRepository repository;
+    private final MemberRepositoryCustom repository;
+    private final MemberPagePrefetcher prefetcher;
+    private final SearchExecutor executor;
+    private final MemberPartitionedExporter exporter;
+    private final ObjectMapper objectMapper;
+    private final DataVersions versions;
+    private final ChangeFeed changeFeed;
+    private final ChangeFeedStreams changeStreams;
 
     @GetMapping("v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition cond){
-        return repository.search(cond);
+    public CompletableFuture<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition cond, WebRequest request){
+        if (notModified(request, etag())) {
+            return null;
+        }
+        return executor.submit(() -> repository.search(cond));
     }
 
+    @PostMapping("v1/members/batch")
+    public CompletableFuture<List<List<MemberTeamDto>>> searchMemberV1Batch(@RequestBody List<MemberSearchCondition> conds){
+        return executor.submit(() -> repository.searchAll(conds));
+    }
 
     @GetMapping("v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition cond, Pageable pageable){
-        return repository.searchPageComplex(cond, pageable);
+    public CompletableFuture<Page<MemberTeamDto>> searchMemberV2(MemberSearchCondition cond, Pageable pageable, WebRequest request){
+        String etag = etag();
+        if (notModified(request, etag)) {
+            return null;
+        }
+        return executor.submit(() -> prefetcher.searchPage(cond, pageable, etag));
+    }
+
+    @GetMapping(value = "v2/members", params = "envelope=slim")
+    public CompletableFuture<SlimPage<MemberTeamDto>> searchMemberV2Slim(MemberSearchCondition cond, Pageable pageable, WebRequest request){
+        String etag = etag();
+        if (notModified(request, etag)) {
+            return null;
+        }
+        return executor.submit(() -> SlimPage.of(prefetcher.searchPage(cond, pageable, etag)));
+    }
+
+    /**
+     * 전체 회원을 한 줄에 하나씩 JSON 으로 내려준다. (application/x-ndjson)
+     */
+    @GetMapping("v1/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMembers(@RequestParam(required = false) Integer partitions,
+                                                               @RequestParam(defaultValue = "true") boolean ordered){
+        StreamingResponseBody body = out -> {
+            try (Stream<MemberTeamDto> rows = partitions == null ? exporter.export(ordered) : exporter.export(partitions, ordered)) {
+                writeLines(rows.iterator(), out);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * 검색 결과는 Member, Team 에만 의존하므로 두 버전이 그대로면 쿼리 없이 304 를 응답한다.
+     * 아니면 ETag/Last-Modified 헤더만 세팅하고 조회를 진행한다.
+     * 같은 ETag 를 prefetcher 에도 넘겨서, 그 버전으로 만든 페이지만 재사용하게 한다.
+     */
+    private boolean notModified(WebRequest request, String etag) {
+        return request.checkNotModified(etag, versions.lastModified());
+    }
+
+    private String etag() {
+        return versions.etag(Member.class, Team.class);
+    }
+
+    /**
+     * Member/Team 변경 이벤트를 SSE 로 흘려보낸다.
+     * from(또는 재연결 시 Last-Event-ID + 1) 부터 이어 받고, 둘 다 없으면 지금 이후의 변경만 받는다.
+     * 요청한 offset 이 이미 밀려났으면 reset 이벤트를 보내고 끊는다. 이때는 전체를 다시 읽어야 한다.
+     */
+    @GetMapping(value = "v1/members/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long from,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId){
+        long offset = lastEventId != null ? lastEventId + 1
+                : from != null ? from
+                : changeFeed.nextOffset();
+        return changeStreams.subscribe(offset);
+    }
+
+    /**
+     * SSE 를 쓰지 않는 소비자용. 응답의 nextOffset 을 다음 요청의 from 으로 넘긴다.
+     */
+    @GetMapping("v1/members/changes")
+    public ChangeFeedPage readChanges(@RequestParam(required = false) Long from,
+                                      @RequestParam(defaultValue = "500") int limit){
+        return changeFeed.read(from == null ? changeFeed.nextOffset() : from, limit);
+    }
+
+    private void writeLines(Iterator<MemberTeamDto> rows, OutputStream out) throws IOException {
+        while (rows.hasNext()) {
+            out.write(objectMapper.writeValueAsBytes(rows.next()));
+            out.write('\n');
+        }
     }
 
 }
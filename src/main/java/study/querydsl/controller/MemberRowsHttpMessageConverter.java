@@ -0,0 +1,241 @@
+package study.querydsl.controller;
+
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SlimPage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 서비스 간 호출용 application/x-member-rows 포맷.
+ * <pre>
+ * magic 'M' 'R', version(1), flags(bit0 = page)
+ * [page]  totalElements, number, size                     (varint)
+ * teams   count, (teamId, name)*                          팀 이름 사전
+ * rows    count, (memberId, username, age, teamIndex)*    teamIndex 0 = 팀 없음, i = 사전의 i-1 번째
+ * </pre>
+ * 숫자는 모두 varint (age 는 zigzag), 문자열은 길이+1 varint(0 = null) 뒤에 UTF-8.
+ * List&lt;MemberTeamDto&gt; 와 Page&lt;MemberTeamDto&gt; 를 쓸 수 있고, 읽을 때는 List 또는 {@link SlimPage} 로 읽는다.
+ * 읽을 때 개수/길이가 음수이거나 {@link #MAX_ROWS}, {@link #MAX_STRING_BYTES} 를 넘거나, teamIndex 가 사전 밖이거나,
+ * body 가 중간에 끊기면 {@link HttpMessageNotReadableException} 으로 거절한다.
+ */
+public class MemberRowsHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType MEMBER_ROWS = MediaType.parseMediaType("application/x-member-rows");
+
+    private static final int VERSION = 1;
+    private static final int FLAG_PAGE = 1;
+
+    static final int MAX_ROWS = 100_000;
+    static final int MAX_STRING_BYTES = 64 * 1024;
+
+    public MemberRowsHttpMessageConverter() {
+        super(MEMBER_ROWS);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz) || Page.class.isAssignableFrom(clazz) || SlimPage.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return memberRows(type) && super.canWrite(type, clazz, mediaType);
+    }
+
+    /**
+     * 읽은 결과는 List 또는 {@link SlimPage} 이므로 그 타입(요소는 MemberTeamDto)으로 받을 때만 읽는다.
+     */
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        Type raw = type instanceof ParameterizedType ? ((ParameterizedType) type).getRawType() : type;
+        return (List.class.equals(raw) || SlimPage.class.equals(raw)) && memberRows(type) && canRead(mediaType);
+    }
+
+    /**
+     * 타입 인자가 있으면 MemberTeamDto 여야 한다.
+     */
+    private static boolean memberRows(Type type) {
+        return !(type instanceof ParameterizedType)
+                || MemberTeamDto.class.equals(((ParameterizedType) type).getActualTypeArguments()[0]);
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputMessage.getBody()));
+        out.writeByte('M');
+        out.writeByte('R');
+        out.writeByte(VERSION);
+
+        List<?> rows;
+        if (value instanceof Page) {
+            Page<?> page = (Page<?>) value;
+            out.writeByte(FLAG_PAGE);
+            writeVarLong(out, page.getTotalElements());
+            writeVarLong(out, page.getNumber());
+            writeVarLong(out, page.getSize());
+            rows = page.getContent();
+        } else if (value instanceof SlimPage) {
+            SlimPage<?> page = (SlimPage<?>) value;
+            out.writeByte(FLAG_PAGE);
+            writeVarLong(out, page.getTotalElements());
+            writeVarLong(out, page.getNumber());
+            writeVarLong(out, page.getSize());
+            rows = page.getContent();
+        } else {
+            out.writeByte(0);
+            rows = (List<?>) value;
+        }
+
+        Map<Long, Integer> teamIndex = new HashMap<>();
+        List<MemberTeamDto> teams = new ArrayList<>();
+        for (Object row : rows) {
+            if (!(row instanceof MemberTeamDto)) {
+                throw new HttpMessageNotWritableException("only MemberTeamDto rows can be written as " + MEMBER_ROWS);
+            }
+            MemberTeamDto dto = (MemberTeamDto) row;
+            if (dto.getTeamId() != null && !teamIndex.containsKey(dto.getTeamId())) {
+                teamIndex.put(dto.getTeamId(), teams.size() + 1);
+                teams.add(dto);
+            }
+        }
+
+        writeVarLong(out, teams.size());
+        for (MemberTeamDto team : teams) {
+            writeVarLong(out, team.getTeamId());
+            writeString(out, team.getTeamName());
+        }
+
+        writeVarLong(out, rows.size());
+        for (Object row : rows) {
+            MemberTeamDto dto = (MemberTeamDto) row;
+            writeVarLong(out, dto.getMemberId());
+            writeString(out, dto.getUsername());
+            writeVarLong(out, ((dto.getAge() << 1) ^ (dto.getAge() >> 31)) & 0xFFFFFFFFL);
+            writeVarLong(out, dto.getTeamId() == null ? 0 : teamIndex.get(dto.getTeamId()));
+        }
+        out.flush();
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(null, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputMessage.getBody()));
+        try {
+            return readRows(in, inputMessage);
+        } catch (EOFException e) {
+            throw new HttpMessageNotReadableException("truncated " + MEMBER_ROWS + " body", e, inputMessage);
+        }
+    }
+
+    private static Object readRows(DataInputStream in, HttpInputMessage inputMessage) throws IOException {
+        if (in.readByte() != 'M' || in.readByte() != 'R' || in.readByte() != VERSION) {
+            throw new HttpMessageNotReadableException("not a " + MEMBER_ROWS + " v" + VERSION + " body", inputMessage);
+        }
+
+        boolean paged = (in.readByte() & FLAG_PAGE) != 0;
+        long total = 0;
+        int number = 0;
+        int size = 0;
+        if (paged) {
+            total = readBounded(in, Long.MAX_VALUE, "totalElements", inputMessage);
+            number = (int) readBounded(in, Integer.MAX_VALUE, "page number", inputMessage);
+            size = (int) readBounded(in, Integer.MAX_VALUE, "page size", inputMessage);
+        }
+
+        int teamCount = (int) readBounded(in, MAX_ROWS, "team count", inputMessage);
+        long[] teamIds = new long[teamCount];
+        String[] teamNames = new String[teamCount];
+        for (int i = 0; i < teamCount; i++) {
+            teamIds[i] = readVarLong(in);
+            teamNames[i] = readString(in, inputMessage);
+        }
+
+        int rowCount = (int) readBounded(in, MAX_ROWS, "row count", inputMessage);
+        List<MemberTeamDto> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            long memberId = readVarLong(in);
+            String username = readString(in, inputMessage);
+            long zigzag = readVarLong(in);
+            int age = (int) (zigzag >>> 1) ^ -(int) (zigzag & 1);
+            int team = (int) readBounded(in, teamCount, "team index", inputMessage);
+            rows.add(new MemberTeamDto(memberId, username, age,
+                    team == 0 ? null : teamIds[team - 1],
+                    team == 0 ? null : teamNames[team - 1]));
+        }
+        return paged ? new SlimPage<>(rows, number, size, total) : rows;
+    }
+
+    /**
+     * 0 이상 max 이하의 varint 를 읽는다.
+     */
+    private static long readBounded(DataInputStream in, long max, String field, HttpInputMessage inputMessage) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > max) {
+            throw new HttpMessageNotReadableException(field + " " + value + " is out of range [0, " + max + "]", inputMessage);
+        }
+        return value;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, HttpInputMessage inputMessage) throws IOException {
+        int length = (int) readBounded(in, MAX_STRING_BYTES + 1L, "string length", inputMessage);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new EOFException("malformed varint");
+    }
+}
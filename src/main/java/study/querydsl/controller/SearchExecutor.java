@@ -0,0 +1,133 @@
+package study.querydsl.controller;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.MemberExecutionProperties;
+import study.querydsl.config.MemberQueryBudgetProperties;
+import study.querydsl.repository.QueryDeadline;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static study.querydsl.config.MemberExecutionProperties.Mode.SERVLET;
+
+/**
+ * 검색 요청을 서블릿 스레드 대신 별도 executor 에서 실행한다.
+ * <p>
+ * 동시에 DB 를 사용하는 작업 수는 커넥션 풀 크기의 세마포어로 제한하므로
+ * 스레드(특히 가상 스레드)가 많아져도 커넥션 대기열이 무한정 늘어나지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchExecutor {
+
+    private static final int DEFAULT_MAX_CONCURRENT_QUERIES = 10;
+
+    private final MemberExecutionProperties properties;
+    private final MemberQueryBudgetProperties budgetProperties;
+    private final DataSource dataSource;
+
+    private ExecutorService executor;
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        if (properties.getMode() == SERVLET) {
+            return;
+        }
+        int maxConcurrentQueries = properties.getMaxConcurrentQueries() != null
+                ? properties.getMaxConcurrentQueries()
+                : poolSize();
+        permits = new Semaphore(maxConcurrentQueries, true);
+        executor = properties.isVirtualThreads() ? virtualThreadExecutor() : null;
+        if (executor == null) {
+            executor = platformThreadExecutor();
+        }
+        log.info("search executor: {}, max concurrent queries={}", executor, maxConcurrentQueries);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        Supplier<T> budgeted = () -> QueryDeadline.runWithin(budgetProperties.getRequestTimeout(), task);
+        if (executor == null) {
+            return CompletableFuture.completedFuture(budgeted.get());
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> withPermit(budgeted), executor);
+        } catch (RejectedExecutionException e) {
+            throw new SearchOverloadedException("search queue is full");
+        }
+    }
+
+    private <T> T withPermit(Supplier<T> task) {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(properties.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SearchOverloadedException("interrupted while waiting for a connection permit");
+        }
+        if (!acquired) {
+            throw new SearchOverloadedException("no connection permit within " + properties.getAcquireTimeout());
+        }
+        try {
+            return task.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private int poolSize() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.debug("cannot unwrap datasource", e);
+        }
+        return DEFAULT_MAX_CONCURRENT_QUERIES;
+    }
+
+    /**
+     * 소스 호환성은 11 이므로 JDK 21 API 는 리플렉션으로 호출한다.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private ExecutorService platformThreadExecutor() {
+        AtomicInteger sequence = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                properties.getPlatformThreads(), properties.getPlatformThreads(),
+                60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                r -> new Thread(r, "member-search-" + sequence.incrementAndGet()));
+    }
+}
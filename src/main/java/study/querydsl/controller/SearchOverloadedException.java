@@ -0,0 +1,12 @@
+package study.querydsl.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SearchOverloadedException extends RuntimeException {
+
+    public SearchOverloadedException(String message) {
+        super(message);
+    }
+}
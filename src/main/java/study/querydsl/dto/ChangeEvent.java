@@ -0,0 +1,30 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Member/Team 변경 이벤트. offset 은 피드에 들어갈 때 매겨지며 피드 안에서 단조 증가한다.
+ * bulk 문은 어떤 row 가 바뀌었는지 모르므로 entityId 가 null 이고 rows 에 영향받은 row 수가 들어간다.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeEvent {
+
+    public enum Operation {
+        INSERT, UPDATE, DELETE, BULK_UPDATE, BULK_DELETE
+    }
+
+    private long offset;
+    private String entity;
+    private Long entityId;
+    private Operation operation;
+    private long rows;
+    private long committedAt;
+
+    public ChangeEvent withOffset(long offset, long committedAt) {
+        return new ChangeEvent(offset, entity, entityId, operation, rows, committedAt);
+    }
+}
@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * from 부터 읽은 변경 이벤트. truncated 면 요청한 offset 이 이미 ring buffer 에서 밀려났으므로
+ * 전체를 다시 읽고 oldestOffset 부터 이어 받아야 한다.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedPage {
+
+    private List<ChangeEvent> events;
+    private long nextOffset;
+    private long oldestOffset;
+    private boolean truncated;
+}
@@ -2,6 +2,8 @@ package study.querydsl.dto;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class MemberSearchCondition {
 
@@ -10,4 +12,10 @@ public class MemberSearchCondition {
     private Integer ageGoe;
     private Integer ageLoe;
 
+    /**
+     * 목록 중 하나와 일치. null 이나 빈 목록은 조건 없음. 크기에 따라 SQL 로 바꾸는 방식은 MemberInLists 참고.
+     */
+    private List<String> usernames;
+    private List<Long> memberIds;
+
 }
@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * PageImpl 직렬화 결과(pageable, sort, first, last, empty ...)에서 꼭 필요한 것만 남긴 페이지
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlimPage<T> {
+
+    private List<T> content;
+    private int number;
+    private int size;
+    private long totalElements;
+
+    public static <T> SlimPage<T> of(Page<T> page) {
+        return new SlimPage<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements());
+    }
+}
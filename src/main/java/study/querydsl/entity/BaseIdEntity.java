@@ -4,9 +4,11 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
+import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Version;
 
 import static lombok.AccessLevel.PROTECTED;
 
@@ -20,6 +22,13 @@ public class BaseIdEntity {
     @GeneratedValue
     private Long id;
 
+    /**
+     * 낙관적 락. JDBC 로 직접 넣은 행도 0 으로 시작하도록 컬럼 기본값을 둔다.
+     */
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     @Override
     public String toString() {
         return "id=" + id;
@@ -0,0 +1,35 @@
+package study.querydsl.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import static javax.persistence.GenerationType.IDENTITY;
+import static lombok.AccessLevel.PROTECTED;
+
+/**
+ * 너무 큰 IN 목록을 조회하는 동안만 담아 두는 행. list_id 로 묶고 조회가 끝나면 지운다.
+ * 쓰기는 MemberInLists 가 JDBC 로 한다.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_in_list_long", columnList = "list_id, long_value"),
+        @Index(name = "idx_in_list_string", columnList = "list_id, string_value")
+})
+@Getter
+@NoArgsConstructor(access = PROTECTED)
+public class InListValue {
+
+    @Id
+    @GeneratedValue(strategy = IDENTITY)
+    private Long id;
+
+    private long listId;
+    private Long longValue;
+    private String stringValue;
+}
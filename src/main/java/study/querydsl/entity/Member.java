@@ -3,14 +3,24 @@ package study.querydsl.entity;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import study.querydsl.repository.EntityChangeListener;
 
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
 
 import static javax.persistence.FetchType.LAZY;
 import static lombok.AccessLevel.PROTECTED;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username, id"),
+        @Index(name = "idx_member_age", columnList = "age, id"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age")
+})
+@EntityListeners(EntityChangeListener.class)
 @Getter
 @NoArgsConstructor(access = PROTECTED)
 @ToString(exclude = "team", callSuper = true)
@@ -38,9 +48,11 @@ public class Member extends BaseIdEntity {
         }
     }
 
+    /**
+     * Team.members 는 bytecode enhancement(association management)가 맞춰준다.
+     */
     public void changeTeam(Team team) {
         this.team = team;
-        team.getMembers().add(this);
     }
 
 }
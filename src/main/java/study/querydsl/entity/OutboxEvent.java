@@ -0,0 +1,53 @@
+package study.querydsl.entity;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+import static javax.persistence.GenerationType.IDENTITY;
+import static lombok.AccessLevel.PROTECTED;
+
+/**
+ * Member/Team 변경과 같은 트랜잭션에서 쓰는 outbox row.
+ * 쓰기 경로에서는 OutboxWriter 가 JDBC 로 바로 insert 하고, OutboxDispatcher 가 id 순서로 읽어 내보낸다.
+ * id 가 insert 순서가 되도록 IDENTITY 를 쓴다.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_outbox_pending", columnList = "dispatched_at, next_attempt_at, id"))
+@Getter
+@NoArgsConstructor(access = PROTECTED)
+@ToString(exclude = "payload")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = IDENTITY)
+    private Long id;
+
+    private String aggregateType;
+    private Long aggregateId;
+    private String eventType;
+
+    @Lob
+    private String payload;
+
+    private long createdAt;
+    private int attempts;
+    private long nextAttemptAt;
+    private Long dispatchedAt;
+
+    public OutboxEvent(String aggregateType, Long aggregateId, String eventType, String payload, long createdAt) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+}
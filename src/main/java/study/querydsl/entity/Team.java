@@ -4,15 +4,22 @@ package study.querydsl.entity;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.OptimisticLock;
+import study.querydsl.repository.EntityChangeListener;
 
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
 import java.util.ArrayList;
 import java.util.List;
 
 import static lombok.AccessLevel.PROTECTED;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name, id"))
+@EntityListeners(EntityChangeListener.class)
 @Getter
 @NoArgsConstructor(access = PROTECTED)
 @ToString(exclude = "members", callSuper = true)
@@ -20,6 +27,10 @@ public class Team extends BaseIdEntity {
 
     private String name;
 
+    /**
+     * 회원이 들어오고 나가도 팀의 version 은 올리지 않는다. 팀 이동끼리 팀 행에서 충돌하지 않게.
+     */
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
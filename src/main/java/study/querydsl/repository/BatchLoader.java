@@ -0,0 +1,113 @@
+package study.querydsl.repository;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 짧은 시간 창 안에 들어온 단건 조회를 모아 한 번의 일괄 조회로 처리한다. (DataLoader 방식)
+ * <p>
+ * 같은 key 를 조회하는 요청이 진행중이면 스레드가 달라도 같은 future 를 공유한다.
+ * 조회가 끝나면 결과는 보관하지 않는다. (캐시가 아니라 in-flight 중복 제거만 한다)
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<Set<K>, Map<K, V>> batchFunction;
+    private final ScheduledExecutorService scheduler;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final Map<K, CompletableFuture<Optional<V>>> inFlight = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private Set<K> pending = new LinkedHashSet<>();
+    private ScheduledFuture<?> scheduled;
+
+    public BatchLoader(Function<Set<K>, Map<K, V>> batchFunction, ScheduledExecutorService scheduler,
+                       Duration window, int maxBatchSize) {
+        this.batchFunction = batchFunction;
+        this.scheduler = scheduler;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public CompletableFuture<Optional<V>> load(K key) {
+        CompletableFuture<Optional<V>> created = new CompletableFuture<>();
+        CompletableFuture<Optional<V>> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        synchronized (lock) {
+            pending.add(key);
+            if (pending.size() >= maxBatchSize) {
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                }
+                scheduled = null;
+                Set<K> batch = drain();
+                scheduler.execute(() -> dispatch(batch));
+            } else if (scheduled == null) {
+                scheduled = scheduler.schedule(this::flush, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        return created;
+    }
+
+    public CompletableFuture<Map<K, V>> loadMany(Collection<K> keys) {
+        Map<K, CompletableFuture<Optional<V>>> futures = new LinkedHashMap<>();
+        for (K key : keys) {
+            futures.put(key, load(key));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    Map<K, V> values = new LinkedHashMap<>();
+                    futures.forEach((key, future) -> future.join().ifPresent(value -> values.put(key, value)));
+                    return values;
+                });
+    }
+
+    private void flush() {
+        Set<K> batch;
+        synchronized (lock) {
+            scheduled = null;
+            batch = drain();
+        }
+        dispatch(batch);
+    }
+
+    private Set<K> drain() {
+        Set<K> batch = pending;
+        pending = new LinkedHashSet<>();
+        return batch;
+    }
+
+    /**
+     * batch 의 future 를 먼저 inFlight 에서 빼고, 일괄 조회가 어떻게 끝나든 (Error 포함) 모두 완료한다.
+     * future 가 완료된 뒤 같은 key 를 조회하면 새 batch 로 다시 조회한다.
+     */
+    private void dispatch(Set<K> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<K, CompletableFuture<Optional<V>>> futures = new LinkedHashMap<>();
+        for (K key : batch) {
+            futures.put(key, inFlight.remove(key));
+        }
+        try {
+            Map<K, V> values = batchFunction.apply(batch);
+            futures.forEach((key, future) -> future.complete(Optional.ofNullable(values.get(key))));
+        } catch (Throwable e) {
+            futures.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydsl.repository;
+
+import org.springframework.stereotype.Component;
+import study.querydsl.config.MemberChangeFeedProperties;
+import study.querydsl.dto.ChangeEvent;
+import study.querydsl.dto.ChangeFeedPage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 커밋된 Member/Team 변경 이벤트의 bounded ring buffer.
+ * <p>
+ * 이벤트는 커밋 순서대로 offset 이 매겨지고, capacity 를 넘으면 오래된 것부터 덮어쓴다.
+ * 소비자는 마지막으로 받은 offset + 1 부터 다시 읽으면 되고, 그 사이 밀려났다면 truncated 를 받는다.
+ */
+@Component
+public class ChangeFeed {
+
+    private final ChangeEvent[] buffer;
+    private final int batchSize;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    private long nextOffset;
+
+    public ChangeFeed(MemberChangeFeedProperties properties) {
+        this.buffer = new ChangeEvent[properties.getCapacity()];
+        this.batchSize = properties.getBatchSize();
+    }
+
+    public void publish(List<ChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        long committedAt = System.currentTimeMillis();
+        synchronized (this) {
+            for (ChangeEvent event : events) {
+                buffer[(int) (nextOffset % buffer.length)] = event.withOffset(nextOffset, committedAt);
+                nextOffset++;
+            }
+        }
+        listeners.forEach(Runnable::run);
+    }
+
+    public synchronized ChangeFeedPage read(long from, int limit) {
+        long oldest = oldestOffset();
+        if (from < oldest) {
+            return new ChangeFeedPage(List.of(), oldest, oldest, true);
+        }
+        long start = Math.min(from, nextOffset);
+        long end = Math.min(nextOffset, start + Math.max(1, Math.min(limit, batchSize)));
+        List<ChangeEvent> events = new ArrayList<>((int) (end - start));
+        for (long offset = start; offset < end; offset++) {
+            events.add(buffer[(int) (offset % buffer.length)]);
+        }
+        return new ChangeFeedPage(events, end, oldest, false);
+    }
+
+    public synchronized long nextOffset() {
+        return nextOffset;
+    }
+
+    /**
+     * 새 이벤트가 들어올 때마다 publish 한 스레드(커밋한 스레드)에서 호출된다. 오래 걸리는 일은 넘겨서 처리해야 한다.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    private long oldestOffset() {
+        return Math.max(0, nextOffset - buffer.length);
+    }
+}
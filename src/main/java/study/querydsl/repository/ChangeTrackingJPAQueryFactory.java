@@ -0,0 +1,66 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import study.querydsl.dto.ChangeEvent.Operation;
+
+import javax.persistence.EntityListeners;
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+
+import static study.querydsl.dto.ChangeEvent.Operation.BULK_DELETE;
+import static study.querydsl.dto.ChangeEvent.Operation.BULK_UPDATE;
+
+/**
+ * bulk update/delete 는 엔티티 리스너를 거치지 않으므로 실행 후 직접 EntityChanges 에 알린다.
+ * EntityChangeListener 가 붙은 엔티티만 추적한다. (outbox 자체의 update 가 다시 outbox 에 쓰이지 않도록)
+ * em.createQuery("update ...") 같은 JPQL 문자열 bulk 는 여기서도 잡히지 않는다.
+ */
+public class ChangeTrackingJPAQueryFactory extends JPAQueryFactory {
+
+    private static final ClassValue<Boolean> TRACKED = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            EntityListeners listeners = type.getAnnotation(EntityListeners.class);
+            return listeners != null && Arrays.asList(listeners.value()).contains(EntityChangeListener.class);
+        }
+    };
+
+    private final EntityManager em;
+    private final EntityChanges changes;
+
+    public ChangeTrackingJPAQueryFactory(EntityManager em, EntityChanges changes) {
+        super(em);
+        this.em = em;
+        this.changes = changes;
+    }
+
+    @Override
+    public JPAUpdateClause update(EntityPath<?> path) {
+        return new JPAUpdateClause(em, path) {
+            @Override
+            public long execute() {
+                return changed(path, BULK_UPDATE, super.execute());
+            }
+        };
+    }
+
+    @Override
+    public JPADeleteClause delete(EntityPath<?> path) {
+        return new JPADeleteClause(em, path) {
+            @Override
+            public long execute() {
+                return changed(path, BULK_DELETE, super.execute());
+            }
+        };
+    }
+
+    private long changed(EntityPath<?> path, Operation operation, long count) {
+        if (count > 0 && TRACKED.get(path.getType())) {
+            changes.record(path.getType(), null, operation, count, null);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 엔티티(테이블)별 데이터 버전 카운터.
+ * <p>
+ * EntityChanges 가 커밋 직후에 바뀐 엔티티의 버전을 올린다. 롤백되면 올리지 않는다.
+ * 조회 결과의 ETag 는 관련 엔티티 버전의 조합이라 쿼리 없이 만들 수 있다.
+ * 카운터는 메모리에만 있으므로 재시작을 구분하기 위해 epoch 를 붙인다.
+ */
+@Component
+public class DataVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private volatile long lastModified = System.currentTimeMillis();
+
+    public long version(Class<?> entityType) {
+        AtomicLong version = versions.get(entityType.getSimpleName());
+        return version == null ? 0 : version.get();
+    }
+
+    /**
+     * 주어진 엔티티 버전들로 만든 weak ETag. 쿼리를 실행하기 전에 구해야 한다.
+     */
+    public String etag(Class<?>... entityTypes) {
+        StringBuilder etag = new StringBuilder("W/\"").append(epoch);
+        for (Class<?> entityType : entityTypes) {
+            etag.append('-').append(version(entityType));
+        }
+        return etag.append('"').toString();
+    }
+
+    public long lastModified() {
+        return lastModified;
+    }
+
+    void bump(Collection<String> entities) {
+        for (String entity : entities) {
+            versions.computeIfAbsent(entity, name -> new AtomicLong()).incrementAndGet();
+        }
+        lastModified = System.currentTimeMillis();
+    }
+}
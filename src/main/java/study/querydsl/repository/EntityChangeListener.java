@@ -0,0 +1,38 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.BaseIdEntity;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import static study.querydsl.dto.ChangeEvent.Operation.DELETE;
+import static study.querydsl.dto.ChangeEvent.Operation.INSERT;
+import static study.querydsl.dto.ChangeEvent.Operation.UPDATE;
+
+/**
+ * 엔티티 변경을 EntityChanges 에 알린다. Hibernate 가 SpringBeanContainer 로 빈을 주입받아 생성한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityChangeListener {
+
+    private final EntityChanges changes;
+
+    @PostPersist
+    public void inserted(BaseIdEntity entity) {
+        changes.record(entity.getClass(), entity.getId(), INSERT, 1, entity);
+    }
+
+    @PostUpdate
+    public void updated(BaseIdEntity entity) {
+        changes.record(entity.getClass(), entity.getId(), UPDATE, 1, entity);
+    }
+
+    @PostRemove
+    public void removed(BaseIdEntity entity) {
+        changes.record(entity.getClass(), entity.getId(), DELETE, 1, entity);
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.ChangeEvent;
+import study.querydsl.dto.ChangeEvent.Operation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * 엔티티 리스너와 bulk 문에서 올라온 변경을 받는다.
+ * <p>
+ * outbox 에는 바로 써서 변경과 같은 트랜잭션에 묶고,
+ * DataVersions 와 ChangeFeed 에는 트랜잭션 단위로 모았다가 커밋 직후에 반영한다. 롤백되면 버린다.
+ */
+@Component
+@RequiredArgsConstructor
+public class EntityChanges {
+
+    private final DataVersions versions;
+    private final ChangeFeed feed;
+    private final OutboxWriter outbox;
+
+    /**
+     * @param entity 변경된 엔티티. bulk 문이면 null
+     */
+    public void record(Class<?> entityType, Long entityId, Operation operation, long rows, Object entity) {
+        ChangeEvent event = new ChangeEvent(-1, entityType.getSimpleName(), entityId, operation, rows, 0);
+        outbox.append(event, entity);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending().add(event);
+        } else {
+            committed(List.of(event));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ChangeEvent> pending() {
+        List<ChangeEvent> pending = (List<ChangeEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<ChangeEvent> events = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, events);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(EntityChanges.this);
+                    if (status == STATUS_COMMITTED) {
+                        committed(events);
+                    }
+                }
+            });
+            pending = events;
+        }
+        return pending;
+    }
+
+    private void committed(List<ChangeEvent> events) {
+        versions.bump(events.stream().map(ChangeEvent::getEntity).collect(toSet()));
+        feed.publish(events);
+    }
+}
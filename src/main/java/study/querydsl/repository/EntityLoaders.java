@@ -0,0 +1,70 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.MemberLoaderProperties;
+import study.querydsl.entity.BaseIdEntity;
+import study.querydsl.entity.Member;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toMap;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * id 단건 조회를 모아 where id in (...) 한 번으로 처리하는 loader. 트랜잭션 밖의 MemberJpaRepository.findById 가 쓴다.
+ * <p>
+ * 조회는 loader 스레드에서 트랜잭션 밖에서 실행되므로 결과 엔티티는 준영속 상태다.
+ * 회원은 팀을 fetch join 해서 가져온다.
+ */
+@Component
+public class EntityLoaders {
+
+    private final JPAQueryFactory query;
+    private final ScheduledExecutorService scheduler;
+    private final BatchLoader<Long, Member> members;
+
+    public EntityLoaders(JPAQueryFactory query, MemberLoaderProperties properties) {
+        this.query = query;
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(properties.getThreads(), r -> {
+            Thread thread = new Thread(r, "entity-loader-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.members = new BatchLoader<>(this::findMembers, scheduler, properties.getWindow(), properties.getMaxBatchSize());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public CompletableFuture<Optional<Member>> member(Long id) {
+        return members.load(id);
+    }
+
+    private Map<Long, Member> findMembers(Set<Long> ids) {
+        List<Member> found = query
+                .selectFrom(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(member.id.in(ids))
+                .fetch();
+        return byId(found);
+    }
+
+    private static <T extends BaseIdEntity> Map<Long, T> byId(List<T> entities) {
+        return entities.stream().collect(toMap(BaseIdEntity::getId, Function.identity()));
+    }
+}
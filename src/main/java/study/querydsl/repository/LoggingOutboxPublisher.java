@@ -0,0 +1,18 @@
+package study.querydsl.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.OutboxEvent;
+
+/**
+ * 메시지 브로커가 붙기 전까지 쓰는 기본 publisher. 로그만 남긴다.
+ */
+@Slf4j
+@Component
+public class LoggingOutboxPublisher implements OutboxPublisher {
+
+    @Override
+    public void publish(OutboxEvent event) {
+        log.info("outbox {} {}#{} {}", event.getId(), event.getEventType(), event.getAggregateId(), event.getPayload());
+    }
+}
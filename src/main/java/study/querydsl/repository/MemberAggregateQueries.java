@@ -0,0 +1,107 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberAvgAgeDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * JPAExpressions 서브쿼리로 자주 쓰는 패턴을 조인 / 선계산(집계, in 목록) 형태로 바꾼 쿼리들.
+ * <p>
+ * 서브쿼리를 외부 row 마다 다시 평가하는 DB 에서도 서브쿼리 부분은 한 번만 계산하거나 인덱스 조인으로 처리된다.
+ * 결과는 QueryDslBasicTest 의 서브쿼리 버전과 같다.
+ * <p>
+ * 두 번 조회하는 메서드는 readOnly 트랜잭션으로 묶어 같은 커넥션(같은 replica 또는 primary)에서 실행한다.
+ * 스냅샷은 아니다. 기본 격리 수준(READ COMMITTED)에서는 두 쿼리 사이에 커밋된 변경이 두 번째 쿼리에 보이므로,
+ * 그 사이 최대 나이가 바뀌면 findOldest 가 빈 목록을 돌려줄 수 있다. 서브쿼리 버전과 달리 한 시점의 결과를 보장하지 않는다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberAggregateQueries {
+
+    private final JPAQueryFactory query;
+
+    /**
+     * where age = (select max(sub.age) from Member sub)
+     * -> max 를 먼저 한 번 구하고 age = :max (idx_member_age 로 처리)
+     */
+    @Transactional(readOnly = true)
+    public List<Member> findOldest() {
+        Integer maxAge = query
+                .select(member.age.max())
+                .from(member)
+                .fetchOne();
+        if (maxAge == null) {
+            return List.of();
+        }
+        return query
+                .selectFrom(member)
+                .where(member.age.eq(maxAge))
+                .fetch();
+    }
+
+    /**
+     * where age = (select max(sub.age) from Member sub where sub.team = member.team)
+     * -> 더 나이 많은 같은 팀 회원이 없는 회원 (anti join)
+     */
+    public List<Member> findOldestPerTeam() {
+        QMember older = new QMember("older");
+        return query
+                .selectFrom(member)
+                .leftJoin(older).on(older.team.eq(member.team), older.age.gt(member.age))
+                .where(member.team.isNotNull(), older.id.isNull())
+                .fetch();
+    }
+
+    /**
+     * where age in (select sub.age from Member sub where [subFilter])
+     * -> 서브쿼리 결과(distinct age)를 먼저 구해 in 목록으로 넘긴다.
+     * 같은 테이블끼리 age 로 조인하면 같은 나이가 많을수록 중간 결과가 곱으로 늘어나므로 조인보다 낫다.
+     */
+    @Transactional(readOnly = true)
+    public List<Member> findByAgeIn(Function<QMember, Predicate> subFilter) {
+        QMember sub = new QMember("sub");
+        List<Integer> ages = query
+                .selectDistinct(sub.age)
+                .from(sub)
+                .where(subFilter.apply(sub))
+                .fetch();
+        if (ages.isEmpty()) {
+            return List.of();
+        }
+        return query
+                .selectFrom(member)
+                .where(member.age.in(ages))
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+
+    /**
+     * select username, (select avg(sub.age) from Member sub) from Member
+     * -> avg 를 한 번 구해 모든 row 에 붙인다.
+     */
+    @Transactional(readOnly = true)
+    public List<MemberAvgAgeDto> findUsernamesWithAvgAge() {
+        Double avgAge = query
+                .select(member.age.avg())
+                .from(member)
+                .fetchOne();
+        return query
+                .select(member.username)
+                .from(member)
+                .fetch()
+                .stream()
+                .map(username -> new MemberAvgAgeDto(username, avgAge))
+                .collect(toList());
+    }
+}
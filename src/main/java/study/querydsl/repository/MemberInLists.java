@@ -0,0 +1,301 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.dsl.SimpleExpression;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.MemberInListProperties;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * MemberSearchCondition 의 usernames / memberIds 목록을 SQL 로 바꾸는 방식.
+ * <pre>
+ * PADDED      목록마다 in (...) 하나. 크기를 2의 거듭제곱으로 맞춰서 SQL 문자열(plan cache)이 몇 개로 모이게 한다.
+ * CHUNKED     목록 하나가 {@link #MAX_IN_LIST_SIZE} 를 넘으면 그 목록을 나눠 쿼리를 여러 개 동시에 실행하고 합친다.
+ * TEMP_TABLE  in_list_value 에 목록을 써 두고 in (select ...) 로 비교한다. 페이징/count 또는 아주 큰 목록.
+ * </pre>
+ * 어떤 방식을 골랐는지는 member.in_list.strategy 로 기록한다.
+ * <p>
+ * 트랜잭션 밖에서 부르면 조회마다 필요한 만큼만 커넥션을 잡는다 (호출 스레드는 나눈 조회를 기다리는 동안 커넥션을 잡고 있지 않는다).
+ * 이미 트랜잭션 안이면 그 커넥션 하나로 차례로 실행하고, 추가 커넥션은 쓰지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberInLists {
+
+    /**
+     * in (...) 하나에 넣는 최대 값 수. 넘으면 (in ... or in ...) 로 나눈다.
+     */
+    public static final int MAX_IN_LIST_SIZE = 256;
+
+    private static final String INSERT_SQL = "insert into in_list_value (list_id, long_value, string_value) values (?, ?, ?)";
+    private static final String DELETE_SQL = "delete from in_list_value where list_id = ?";
+
+    private final JdbcTemplate jdbc;
+    private final PlatformTransactionManager transactionManager;
+    private final MemberInListProperties properties;
+    private final MeterRegistry registry;
+
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+    private ExecutorService executor;
+
+    public enum Strategy {
+        NONE, PADDED, CHUNKED, TEMP_TABLE
+    }
+
+    /**
+     * in_list_value 에 써 둔 목록의 list_id. 쓰지 않은 목록은 null
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class TempLists {
+
+        public static final TempLists NONE = new TempLists(null, null);
+
+        private final Long usernames;
+        private final Long memberIds;
+    }
+
+    @PostConstruct
+    public void init() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+
+        AtomicInteger sequence = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(properties.getParallelism(), r -> {
+            Thread thread = new Thread(r, "member-in-list-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param unpaged 페이징/count 가 없는 검색이면 true. 나눠 조회한 결과를 합쳐도 같은 결과일 때만 CHUNKED 를 쓴다.
+     */
+    public Strategy choose(MemberSearchCondition cond, boolean unpaged) {
+        int usernames = distinct(cond.getUsernames()).size();
+        int memberIds = distinct(cond.getMemberIds()).size();
+        int largest = Math.max(usernames, memberIds);
+
+        Strategy strategy;
+        if (largest == 0) {
+            strategy = Strategy.NONE;
+        } else if (largest <= MAX_IN_LIST_SIZE) {
+            strategy = Strategy.PADDED;
+        } else if (unpaged && Math.min(usernames, memberIds) <= MAX_IN_LIST_SIZE
+                && largest <= properties.getChunkedMaxSize()) {
+            strategy = Strategy.CHUNKED;
+        } else {
+            strategy = Strategy.TEMP_TABLE;
+        }
+        registry.counter("member.in_list.strategy", "strategy", strategy.name().toLowerCase()).increment();
+        return strategy;
+    }
+
+    /**
+     * usernames / memberIds 중 하나라도 in (...) 하나에 넣을 수 있는 크기를 넘으면 true
+     */
+    public boolean oversized(MemberSearchCondition cond) {
+        return largest(cond) > MAX_IN_LIST_SIZE;
+    }
+
+    private static int largest(MemberSearchCondition cond) {
+        return Math.max(distinct(cond.getUsernames()).size(), distinct(cond.getMemberIds()).size());
+    }
+
+    /**
+     * readOnly 트랜잭션으로 실행한다. 이미 트랜잭션 안이면 그 트랜잭션에 참여한다.
+     */
+    public <T> T readOnly(Supplier<T> query) {
+        return readOnly.execute(status -> query.get());
+    }
+
+    /**
+     * 큰 목록을 {@link #MAX_IN_LIST_SIZE} 씩 나눈 조건으로 query 를 실행해 합친다.
+     * 나눈 값은 서로 겹치지 않으므로 같은 행이 두 번 나오지 않는다. 요청 마감은 각 쿼리에도 그대로 적용된다.
+     * 트랜잭션 밖이면 각자 readOnly 트랜잭션으로 동시에, 안이면 현재 커넥션에서 차례로 실행한다.
+     */
+    public <T> List<T> chunked(MemberSearchCondition cond, Function<MemberSearchCondition, List<T>> query) {
+        List<MemberSearchCondition> conds = new ArrayList<>();
+        if (distinct(cond.getUsernames()).size() > MAX_IN_LIST_SIZE) {
+            for (List<String> values : chunks(cond.getUsernames())) {
+                MemberSearchCondition chunk = MemberSearchConditions.copyOf(cond);
+                chunk.setUsernames(values);
+                conds.add(chunk);
+            }
+        } else {
+            for (List<Long> values : chunks(cond.getMemberIds())) {
+                MemberSearchCondition chunk = MemberSearchConditions.copyOf(cond);
+                chunk.setMemberIds(values);
+                conds.add(chunk);
+            }
+        }
+
+        List<T> rows = new ArrayList<>();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            for (MemberSearchCondition chunk : conds) {
+                rows.addAll(query.apply(chunk));
+            }
+            return rows;
+        }
+
+        Duration remaining = QueryDeadline.remaining();
+        Long deadline = remaining == null ? null : System.nanoTime() + remaining.toNanos();
+        List<Future<List<T>>> chunks = new ArrayList<>();
+        for (MemberSearchCondition chunk : conds) {
+            chunks.add(executor.submit(() -> inReadOnly(chunk, query, deadline)));
+        }
+        try {
+            for (Future<List<T>> chunk : chunks) {
+                rows.addAll(chunk.get());
+            }
+            return rows;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while searching in-list chunks", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            chunks.forEach(chunk -> chunk.cancel(true));
+        }
+    }
+
+    private <T> List<T> inReadOnly(MemberSearchCondition chunk, Function<MemberSearchCondition, List<T>> query, Long deadline) {
+        if (deadline == null) {
+            return readOnly.execute(status -> query.apply(chunk));
+        }
+        return QueryDeadline.runWithin(Duration.ofNanos(deadline - System.nanoTime()),
+                () -> readOnly.execute(status -> query.apply(chunk)));
+    }
+
+    /**
+     * {@link #MAX_IN_LIST_SIZE} 를 넘는 목록을 in_list_value 에 쓰고 query 를 실행한다.
+     * <ul>
+     * <li>트랜잭션 밖: primary 에 쓰기 트랜잭션을 열어 쓰고 조회한 뒤 롤백한다. 다른 트랜잭션에는 보이지 않고 남지도 않는다.</li>
+     * <li>쓰기 트랜잭션 안: 그 트랜잭션에서 쓰고 끝나면 지운다.</li>
+     * <li>readOnly 트랜잭션 안: 쓸 수 없으므로 {@link TempLists#NONE} 으로 실행한다 (in 을 or 로 묶은 조건).
+     * SQL 이 커지지 않도록 chunked-max-size 까지만 허용하고, 넘으면 {@link QueryBudgetExceededException}.</li>
+     * </ul>
+     */
+    public <T> T withTempLists(MemberSearchCondition cond, Function<TempLists, T> query) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                if (largest(cond) > properties.getChunkedMaxSize()) {
+                    throw new QueryBudgetExceededException("at most " + properties.getChunkedMaxSize()
+                            + " usernames / memberIds can be searched in a read-only transaction, call it outside the transaction");
+                }
+                return query.apply(TempLists.NONE);
+            }
+            TempLists temp = write(cond);
+            try {
+                return query.apply(temp);
+            } finally {
+                delete(temp);
+            }
+        }
+        return readWrite.execute(status -> {
+            status.setRollbackOnly();
+            return query.apply(write(cond));
+        });
+    }
+
+    private TempLists write(MemberSearchCondition cond) {
+        Long usernames = null;
+        Long memberIds = null;
+        if (distinct(cond.getUsernames()).size() > MAX_IN_LIST_SIZE) {
+            usernames = ThreadLocalRandom.current().nextLong();
+            List<Object[]> rows = new ArrayList<>();
+            for (String value : distinct(cond.getUsernames())) {
+                rows.add(new Object[]{usernames, null, value});
+            }
+            jdbc.batchUpdate(INSERT_SQL, rows);
+        }
+        if (distinct(cond.getMemberIds()).size() > MAX_IN_LIST_SIZE) {
+            memberIds = ThreadLocalRandom.current().nextLong();
+            List<Object[]> rows = new ArrayList<>();
+            for (Long value : distinct(cond.getMemberIds())) {
+                rows.add(new Object[]{memberIds, value, null});
+            }
+            jdbc.batchUpdate(INSERT_SQL, rows);
+        }
+        return new TempLists(usernames, memberIds);
+    }
+
+    private void delete(TempLists temp) {
+        if (temp.getUsernames() != null) {
+            jdbc.update(DELETE_SQL, temp.getUsernames());
+        }
+        if (temp.getMemberIds() != null) {
+            jdbc.update(DELETE_SQL, temp.getMemberIds());
+        }
+    }
+
+    /**
+     * path in (...) 를 {@link #MAX_IN_LIST_SIZE} 씩 나눠 or 로 묶는다. 목록이 null 이거나 비어 있으면 조건 없음.
+     */
+    public static <T> BooleanBuilder in(SimpleExpression<T> path, Collection<T> values) {
+        BooleanBuilder any = new BooleanBuilder();
+        for (List<T> chunk : chunks(values)) {
+            any.or(path.in(padded(chunk)));
+        }
+        return any;
+    }
+
+    /**
+     * 중복을 빼고, 마지막 값을 반복해서 크기를 2의 거듭제곱으로 맞춘다. 1~256 개가 9가지 SQL 로 모인다.
+     */
+    static <T> List<T> padded(Collection<T> values) {
+        List<T> padded = distinct(values);
+        int size = padded.size() <= 1 ? padded.size() : Integer.highestOneBit(padded.size() - 1) << 1;
+        T last = padded.isEmpty() ? null : padded.get(padded.size() - 1);
+        while (padded.size() < size) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+    static <T> List<List<T>> chunks(Collection<T> values) {
+        List<T> distinct = distinct(values);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MAX_IN_LIST_SIZE) {
+            chunks.add(distinct.subList(from, Math.min(distinct.size(), from + MAX_IN_LIST_SIZE)));
+        }
+        return chunks;
+    }
+
+    private static <T> List<T> distinct(Collection<T> values) {
+        return values == null ? new ArrayList<>() : new ArrayList<>(new LinkedHashSet<>(values));
+    }
+}
@@ -5,6 +5,7 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
@@ -13,6 +14,8 @@ import study.querydsl.entity.Member;
 import javax.persistence.EntityManager;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Supplier;
 
 import static org.springframework.util.StringUtils.hasText;
@@ -25,14 +28,35 @@ public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory query;
+    private final EntityLoaders loaders;
 
     public void save(Member member) {
         em.persist(member);
     }
 
+    /**
+     * 트랜잭션 밖에서는 다른 스레드의 조회와 모아 한 번의 in 쿼리로 처리한다 ({@link #findByIdAsync}). 결과는 준영속 상태.
+     * 트랜잭션 안에서는 영속성 컨텍스트(아직 flush 하지 않은 변경 포함)를 봐야 하므로 em.find 를 쓴다.
+     */
     public Optional<Member> findById(Long id) {
-        Member findMember = em.find(Member.class, id);
-        return Optional.ofNullable(findMember);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Optional.ofNullable(em.find(Member.class, id));
+        }
+        try {
+            return findByIdAsync(id).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 동시에 들어온 조회를 모아 한 번의 in 쿼리로 처리한다. 결과는 준영속 상태
+     */
+    public CompletableFuture<Optional<Member>> findByIdAsync(Long id) {
+        return loaders.member(id);
     }
 
     public List<Member> findAll() {
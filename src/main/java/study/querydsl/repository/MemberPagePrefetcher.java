@@ -0,0 +1,183 @@
+package study.querydsl.repository;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.MemberPrefetchProperties;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 페이지 N 을 응답하면서 같은 조건의 페이지 N+1 을 비동기로 미리 조회해 둔다.
+ * 이미 구한 total 을 재사용하므로 다음 페이지에서는 count 쿼리가 나가지 않는다.
+ * 미리 조회한 페이지는 그때의 데이터 버전(ETag)으로 찾으므로, 그 사이 커밋이 있었으면 쓰지 않고 버린다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberPagePrefetcher {
+
+    private final MemberRepositoryCustom repository;
+    private final MemberPrefetchProperties properties;
+    private final DataVersions versions;
+
+    private final Map<PageKey, Prefetched> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                properties.getThreads(), properties.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "member-prefetch-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition cond, Pageable pageable) {
+        return searchPage(cond, pageable, versions.etag(Member.class, Team.class));
+    }
+
+    /**
+     * @param version 응답에 실을 ETag. 조회 전에 구한 값이어야 하고, 같은 값으로 미리 조회한 페이지만 재사용한다.
+     */
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition cond, Pageable pageable, String version) {
+        if (!properties.isEnabled()) {
+            return repository.searchPageComplex(cond, pageable);
+        }
+
+        Page<MemberTeamDto> page = takePrefetched(cond, pageable, version);
+        if (page == null) {
+            page = repository.searchPageComplex(cond, pageable);
+        }
+
+        if (page.hasNext() && pageable.getPageSize() <= properties.getMaxPageSize()) {
+            prefetch(cond, page.nextPageable(), page.getTotalElements(), version);
+        }
+        return page;
+    }
+
+    private Page<MemberTeamDto> takePrefetched(MemberSearchCondition cond, Pageable pageable, String version) {
+        Prefetched prefetched;
+        synchronized (cache) {
+            evictExpired(version);
+            prefetched = cache.remove(new PageKey(cond, pageable, version));
+        }
+        if (prefetched == null) {
+            return null;
+        }
+
+        try {
+            List<MemberTeamDto> content = prefetched.content
+                    .get(properties.getJoinTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            return new PageImpl<>(content, pageable, prefetched.total);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("prefetch 결과를 사용할 수 없음: {}", e.toString());
+        }
+        prefetched.content.cancel(true);
+        return null;
+    }
+
+    private void prefetch(MemberSearchCondition cond, Pageable next, long total, String version) {
+        PageKey key = new PageKey(cond, next, version);
+        synchronized (cache) {
+            if (cache.containsKey(key)) {
+                return;
+            }
+        }
+
+        MemberSearchCondition snapshot = key.cond;
+        Future<List<MemberTeamDto>> content;
+        try {
+            content = executor.submit(() -> repository.searchPageContent(snapshot, next));
+        } catch (RejectedExecutionException e) {
+            return;
+        }
+
+        synchronized (cache) {
+            Prefetched previous = cache.put(key, new Prefetched(content, total, System.nanoTime()));
+            if (previous != null) {
+                previous.content.cancel(true);
+            }
+            evictOverflow();
+        }
+    }
+
+    /**
+     * TTL 이 지났거나 다른 데이터 버전으로 만든 항목을 버린다.
+     */
+    private void evictExpired(String version) {
+        long ttl = properties.getTtl().toNanos();
+        long now = System.nanoTime();
+        Iterator<Map.Entry<PageKey, Prefetched>> it = cache.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<PageKey, Prefetched> entry = it.next();
+            if (now - entry.getValue().createdAt > ttl || !entry.getKey().version.equals(version)) {
+                entry.getValue().content.cancel(true);
+                it.remove();
+            }
+        }
+    }
+
+    private void evictOverflow() {
+        Iterator<Prefetched> it = cache.values().iterator();
+        while (cache.size() > properties.getMaxEntries() && it.hasNext()) {
+            it.next().content.cancel(true);
+            it.remove();
+        }
+    }
+
+    @EqualsAndHashCode
+    private static class PageKey {
+
+        private final MemberSearchCondition cond;
+        private final Pageable pageable;
+        private final String version;
+
+        PageKey(MemberSearchCondition cond, Pageable pageable, String version) {
+            this.cond = MemberSearchConditions.copyOf(cond);
+            this.pageable = pageable;
+            this.version = version;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Prefetched {
+
+        private final Future<List<MemberTeamDto>> content;
+        private final long total;
+        private final long createdAt;
+    }
+}
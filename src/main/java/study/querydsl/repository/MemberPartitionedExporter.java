@@ -0,0 +1,218 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.MemberExportProperties;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 전체 회원을 member.id 범위로 나눠 여러 커넥션에서 동시에 읽는다.
+ * <p>
+ * 각 파티션은 id keyset 으로 chunk 단위로 읽어 bounded queue 에 넣고, 소비가 늦으면 생산도 멈춘다.
+ * ordered 면 파티션 순서(= id 순서)대로, 아니면 먼저 읽힌 chunk 부터 내보낸다.
+ * 반환된 Stream 은 반드시 close 해야 남은 스캔이 취소된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberPartitionedExporter {
+
+    private final JPAQueryFactory query;
+    private final MemberExportProperties properties;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger sequence = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(properties.getThreads(), r -> {
+            Thread thread = new Thread(r, "member-export-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Stream<MemberTeamDto> export(boolean ordered) {
+        return export(properties.getDefaultPartitions(), ordered);
+    }
+
+    public Stream<MemberTeamDto> export(int partitions, boolean ordered) {
+        Tuple bounds = query
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .fetchOne();
+        if (bounds == null || bounds.get(member.id.min()) == null) {
+            return Stream.empty();
+        }
+
+        List<long[]> ranges = split(bounds.get(member.id.min()), bounds.get(member.id.max()),
+                Math.max(1, Math.min(partitions, properties.getMaxPartitions())));
+
+        List<BlockingQueue<Chunk>> queues = new ArrayList<>();
+        int queueCount = ordered ? ranges.size() : 1;
+        for (int i = 0; i < queueCount; i++) {
+            queues.add(new ArrayBlockingQueue<>(properties.getQueueCapacity() * (ordered ? 1 : ranges.size())));
+        }
+
+        List<Future<?>> scans = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            long[] range = ranges.get(i);
+            BlockingQueue<Chunk> queue = queues.get(ordered ? i : 0);
+            scans.add(executor.submit(() -> scan(range[0], range[1], queue)));
+        }
+
+        Iterator<MemberTeamDto> rows = new ChunkIterator(queues, ranges.size());
+        int characteristics = ordered ? Spliterator.ORDERED | Spliterator.NONNULL : Spliterator.NONNULL;
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, characteristics), false)
+                .onClose(() -> scans.forEach(scan -> scan.cancel(true)));
+    }
+
+    static List<long[]> split(long min, long max, int partitions) {
+        List<long[]> ranges = new ArrayList<>();
+        long size = (max - min) / partitions + 1;
+        for (long lo = min; lo <= max; lo += size) {
+            ranges.add(new long[]{lo, Math.min(max, lo + size - 1)});
+        }
+        return ranges;
+    }
+
+    private void scan(long lo, long hi, BlockingQueue<Chunk> queue) {
+        try {
+            long after = lo - 1;
+            while (true) {
+                List<MemberTeamDto> rows = query
+                        .select(new QMemberTeamDto(
+                                member.id.as("memberId"),
+                                member.username,
+                                member.age,
+                                team.id.as("teamId"),
+                                team.name.as("teamName")))
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(member.id.gt(after), member.id.loe(hi))
+                        .orderBy(member.id.asc())
+                        .limit(properties.getChunkSize())
+                        .fetch();
+                if (!rows.isEmpty()) {
+                    queue.put(Chunk.of(rows));
+                }
+                if (rows.size() < properties.getChunkSize()) {
+                    break;
+                }
+                after = rows.get(rows.size() - 1).getMemberId();
+            }
+            queue.put(Chunk.END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            try {
+                queue.put(Chunk.failed(e));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class Chunk {
+
+        static final Chunk END = new Chunk(List.of(), null);
+
+        final List<MemberTeamDto> rows;
+        final RuntimeException error;
+
+        private Chunk(List<MemberTeamDto> rows, RuntimeException error) {
+            this.rows = rows;
+            this.error = error;
+        }
+
+        static Chunk of(List<MemberTeamDto> rows) {
+            return new Chunk(rows, null);
+        }
+
+        static Chunk failed(RuntimeException error) {
+            return new Chunk(List.of(), error);
+        }
+    }
+
+    /**
+     * queue 가 하나면 모든 파티션이 끝날 때까지, 여러 개면 앞의 queue 부터 차례로 읽는다.
+     */
+    private static class ChunkIterator implements Iterator<MemberTeamDto> {
+
+        private final List<BlockingQueue<Chunk>> queues;
+        private int remainingPartitions;
+        private int queueIndex;
+        private Iterator<MemberTeamDto> current = List.<MemberTeamDto>of().iterator();
+
+        ChunkIterator(List<BlockingQueue<Chunk>> queues, int partitions) {
+            this.queues = queues;
+            this.remainingPartitions = partitions;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (remainingPartitions == 0) {
+                    return false;
+                }
+                Chunk chunk = take();
+                if (chunk.error != null) {
+                    throw chunk.error;
+                }
+                if (chunk == Chunk.END) {
+                    remainingPartitions--;
+                    if (queues.size() > 1) {
+                        queueIndex++;
+                    }
+                    continue;
+                }
+                current = chunk.rows.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public MemberTeamDto next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        private Chunk take() {
+            try {
+                return queues.get(queueIndex).take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while reading export partitions", e);
+            }
+        }
+    }
+}
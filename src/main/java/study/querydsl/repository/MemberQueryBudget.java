@@ -0,0 +1,142 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.MemberQueryBudgetProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 검색 쿼리의 실행 예산 (timeout, 최대 페이지 크기, 최대 row 수).
+ * 예산을 넘은 횟수는 member.query.budget.exceeded 로 기록한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberQueryBudget {
+
+    public static final String TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private final MemberQueryBudgetProperties properties;
+    private final MeterRegistry registry;
+
+    public enum Endpoint {
+        SEARCH, PAGE, COUNT
+    }
+
+    public Pageable limit(Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getPageSize() <= properties.getMaxPageSize()) {
+            return pageable;
+        }
+        exceeded(Endpoint.PAGE, "page_size");
+        return PageRequest.of(pageable.getPageNumber(), properties.getMaxPageSize(), pageable.getSort());
+    }
+
+    public int maxRows() {
+        return properties.getMaxRows();
+    }
+
+    /**
+     * 여러 곳(shard)에서 offset + size 개씩 읽어 메모리에서 합치는 페이징은 offset 이 깊을수록 읽는 행이 늘어난다.
+     * 한 곳에서 읽을 offset + size 가 maxRows 를 넘으면 거절한다.
+     */
+    public void checkPageWindow(Pageable pageable) {
+        if (pageable.getOffset() + pageable.getPageSize() > maxRows()) {
+            exceeded(Endpoint.PAGE, "page_window");
+            throw new QueryBudgetExceededException(
+                    "page " + pageable.getPageNumber() + " needs more than " + maxRows() + " rows from each shard, narrow the condition");
+        }
+    }
+
+    public void checkBatchSize(int size) {
+        if (size > properties.getMaxBatchSize()) {
+            exceeded(Endpoint.SEARCH, "batch_size");
+            throw new QueryBudgetExceededException(
+                    "at most " + properties.getMaxBatchSize() + " conditions can be searched at once");
+        }
+    }
+
+    /**
+     * 이 쿼리에 줄 timeout (ms). 요청 마감이 있으면 남은 시간과 endpoint 예산 중 작은 값.
+     */
+    public int timeoutMillis(Endpoint endpoint) {
+        Duration timeout = timeout(endpoint);
+        Duration remaining = QueryDeadline.remaining();
+        if (remaining != null && remaining.compareTo(timeout) < 0) {
+            timeout = remaining;
+        }
+        return (int) Math.max(1, timeout.toMillis());
+    }
+
+    /**
+     * JPA query timeout hint 값 (ms). Hibernate 5 는 hint 를 초로 반올림하므로 500ms 미만이 0(= timeout 없음)이 된다.
+     * 초 단위로 올려서 마감이 가까운 쿼리도 최소 1초 timeout 을 갖게 한다.
+     */
+    public int timeoutHint(Endpoint endpoint) {
+        return (timeoutMillis(endpoint) + 999) / 1000 * 1000;
+    }
+
+    public <T> T run(Endpoint endpoint, Supplier<T> query) {
+        Duration remaining = QueryDeadline.remaining();
+        if (Thread.currentThread().isInterrupted() || (remaining != null && remaining.isNegative())) {
+            exceeded(endpoint, "deadline");
+            throw new QueryDeadlineExceededException("request deadline exceeded before " + endpoint + " query");
+        }
+        try {
+            return query.get();
+        } catch (javax.persistence.QueryTimeoutException | QueryTimeoutException e) {
+            exceeded(endpoint, "timeout");
+            throw new QueryDeadlineExceededException(endpoint + " query timed out", e);
+        }
+    }
+
+    /**
+     * maxRows + 1 건을 조회한 결과를 받아 최대 row 수를 넘었는지 검사한다.
+     */
+    public <T> List<T> checkRows(List<T> rows) {
+        if (rows.size() > maxRows()) {
+            exceeded(Endpoint.SEARCH, "max_rows");
+            throw new QueryBudgetExceededException(
+                    "search matched more than " + maxRows() + " rows, narrow the condition or use paging");
+        }
+        return rows;
+    }
+
+    /**
+     * searchAll 의 LIMIT. 조건마다 maxRows 까지 허용하므로 합친 결과는 조건 수 * maxRows 를 넘지 않는다.
+     * 이 LIMIT 에 걸렸다면 어느 조건 하나는 maxRows 를 넘은 것이므로 {@link #checkRowsEach} 에서 걸러진다.
+     */
+    public long batchLimit(int conditions) {
+        return (long) maxRows() * conditions + 1;
+    }
+
+    /**
+     * 조건별로 나눈 searchAll 결과마다 최대 row 수를 검사한다.
+     */
+    public <T> List<List<T>> checkRowsEach(List<List<T>> results) {
+        results.forEach(this::checkRows);
+        return results;
+    }
+
+    private void exceeded(Endpoint endpoint, String budget) {
+        registry.counter("member.query.budget.exceeded",
+                "endpoint", endpoint.name().toLowerCase(),
+                "budget", budget).increment();
+    }
+
+    private Duration timeout(Endpoint endpoint) {
+        switch (endpoint) {
+            case SEARCH:
+                return properties.getSearchTimeout();
+            case PAGE:
+                return properties.getPageTimeout();
+            default:
+                return properties.getCountTimeout();
+        }
+    }
+}
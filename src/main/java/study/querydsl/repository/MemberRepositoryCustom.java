@@ -14,4 +14,14 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition cond, Pageable pageable);
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition cond, Pageable pageable);
+
+    /**
+     * count 쿼리 없이 페이지 내용만 조회
+     */
+    List<MemberTeamDto> searchPageContent(MemberSearchCondition cond, Pageable pageable);
+
+    /**
+     * 여러 조건을 한 번의 쿼리로 검색하고 조건 순서대로 결과를 나눠 반환
+     */
+    List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conds);
 }
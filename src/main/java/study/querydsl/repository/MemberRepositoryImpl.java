@@ -3,34 +3,88 @@ package study.querydsl.repository;
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.QueryResults;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.SimpleExpression;
+import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.config.MemberRepositoryProperties;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberInLists.TempLists;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
+import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
+import static study.querydsl.entity.QInListValue.inListValue;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberQueryBudget.Endpoint.COUNT;
+import static study.querydsl.repository.MemberQueryBudget.Endpoint.PAGE;
+import static study.querydsl.repository.MemberQueryBudget.Endpoint.SEARCH;
+import static study.querydsl.repository.MemberInLists.Strategy.TEMP_TABLE;
+import static study.querydsl.repository.MemberQueryBudget.TIMEOUT_HINT;
 
 
+/**
+ * 검색/count 는 readOnly 트랜잭션으로 실행해서 replica 가 설정되어 있으면 replica 에서 읽는다.
+ * usernames / memberIds 목록 조건은 크기에 따라 MemberInLists 가 고른 방식으로 조회한다.
+ * 목록을 받는 메서드는 트랜잭션을 먼저 열지 않고(SUPPORTS) 방식을 고른 뒤 필요한 트랜잭션만 연다.
+ * 호출 스레드가 커넥션을 잡은 채 나눈 조회나 임시 목록용 커넥션을 기다리지 않게 하기 위해서다.
+ */
 @Repository
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final OrderSpecifiers ORDER_SPECIFIERS = new OrderSpecifiers(Map.of(
+            "memberId", member.id,
+            "username", member.username,
+            "age", member.age,
+            "teamId", team.id,
+            "teamName", team.name
+    ), member.id);
+
+    /**
+     * team 조인이 있어야 정렬할 수 있는 화이트리스트 property
+     */
+    private static final Set<String> TEAM_SORT_PROPERTIES = Set.of("teamId", "teamName");
+
     private final JPAQueryFactory query;
+    private final MemberQueryBudget budget;
+    private final MemberRepositoryProperties properties;
+    private final MemberInLists inLists;
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<MemberTeamDto> search(MemberSearchCondition cond) {
-        return query
+        switch (inLists.choose(cond, true)) {
+            case CHUNKED:
+                return budget.checkRows(inLists.chunked(cond, chunk -> search(chunk, TempLists.NONE)));
+            case TEMP_TABLE:
+                return inLists.withTempLists(cond, temp -> search(cond, temp));
+            default:
+                return inLists.readOnly(() -> search(cond, TempLists.NONE));
+        }
+    }
+
+    private List<MemberTeamDto> search(MemberSearchCondition cond, TempLists temp) {
+        JPAQuery<MemberTeamDto> searchQuery = query
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -43,13 +97,77 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .where(
                         usernameEq(cond.getUsername()),
                         teamNameEq(cond.getTeamName()),
-                        ageBetween(cond.getAgeLoe(), cond.getAgeGoe()))
-                .fetch();
+                        ageBetween(cond.getAgeLoe(), cond.getAgeGoe()),
+                        inLists(cond, temp))
+                .limit(budget.maxRows() + 1L)
+                .setHint(TIMEOUT_HINT, budget.timeoutHint(SEARCH));
+
+        return budget.checkRows(budget.run(SEARCH, searchQuery::fetch));
     }
 
+    /**
+     * 조건들을 or 로 묶어 한 번에 조회하고 조건별로 나눈다.
+     * {@link MemberInLists#MAX_IN_LIST_SIZE} 를 넘는 목록이 있는 조건은 묶지 않고 {@link #search} 로 따로 조회해서
+     * 목록 크기에 맞는 방식(CHUNKED / TEMP_TABLE)을 고르게 한다.
+     */
     @Override
-    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition cond, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = query
+    public List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conds) {
+        if (conds.isEmpty()) {
+            return List.of();
+        }
+        budget.checkBatchSize(conds.size());
+
+        List<MemberSearchCondition> batched = new ArrayList<>();
+        for (MemberSearchCondition cond : conds) {
+            if (!inLists.oversized(cond)) {
+                batched.add(cond);
+            }
+        }
+        if (batched.size() == conds.size()) {
+            return searchBatch(conds);
+        }
+
+        List<List<MemberTeamDto>> batchedResults = batched.isEmpty() ? List.of() : searchBatch(batched);
+        List<List<MemberTeamDto>> results = new ArrayList<>(conds.size());
+        int next = 0;
+        for (MemberSearchCondition cond : conds) {
+            results.add(inLists.oversized(cond) ? search(cond) : batchedResults.get(next++));
+        }
+        return results;
+    }
+
+    private List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conds) {
+        JPAQuery<MemberTeamDto> batchQuery = query
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(anyOf(conds))
+                .orderBy(member.id.asc())
+                .limit(budget.batchLimit(conds.size()))
+                .setHint(TIMEOUT_HINT, budget.timeoutHint(SEARCH));
+
+        List<MemberTeamDto> rows = budget.run(SEARCH, batchQuery::fetch);
+        return budget.checkRowsEach(MemberSearchConditions.demultiplex(conds, rows));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition cond, Pageable requested) {
+        Pageable pageable = budget.limit(requested);
+        if (inLists.choose(cond, false) == TEMP_TABLE) {
+            return inLists.withTempLists(cond, temp -> searchPageSimple(cond, pageable, temp));
+        }
+        return inLists.readOnly(() -> searchPageSimple(cond, pageable, TempLists.NONE));
+    }
+
+    private Page<MemberTeamDto> searchPageSimple(MemberSearchCondition cond, Pageable pageable, TempLists temp) {
+        JPAQuery<MemberTeamDto> pageQuery = query
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -62,10 +180,14 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
                 .where(
                         usernameEq(cond.getUsername()),
                         teamNameEq(cond.getTeamName()),
-                        ageBetween(cond.getAgeLoe(), cond.getAgeGoe()))
+                        ageBetween(cond.getAgeLoe(), cond.getAgeGoe()),
+                        inLists(cond, temp))
+                .orderBy(ORDER_SPECIFIERS.of(pageable.getSort()))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
-                .fetchResults();
+                .setHint(TIMEOUT_HINT, budget.timeoutHint(PAGE));
+
+        QueryResults<MemberTeamDto> results = budget.run(PAGE, pageQuery::fetchResults);
 
         return new PageImpl<>(
                 results.getResults(),
@@ -75,40 +197,190 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     }
 
     @Override
-    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition cond,
-                Pageable pageable) {
-            List<MemberTeamDto> content = query
-                    .select(new QMemberTeamDto(
-                            member.id.as("memberId"),
-                            member.username,
-                            member.age,
-                            team.id.as("teamId"),
-                            team.name.as("teamName")))
-                    .from(member)
-                    .leftJoin(member.team, team)
-                    .where(
-                            usernameEq(cond.getUsername()),
-                            teamNameEq(cond.getTeamName()),
-                            ageGoe(cond.getAgeGoe()),
-                            ageLoe(cond.getAgeLoe())
-                    )
-                    .offset(pageable.getOffset())
-                    .limit(pageable.getPageSize())
-                    .fetch();
-            
-            JPAQuery<Long> countQuery = query
-                    .select(member.count())
-                    .from(member)
-                    .leftJoin(member.team, team)
-                    .where(
-                            usernameEq(cond.getUsername()),
-                            teamNameEq(cond.getTeamName()),
-                            ageGoe(cond.getAgeGoe()),
-                            ageLoe(cond.getAgeLoe())
-                    );
-            
-            return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition cond, Pageable requested) {
+        Pageable pageable = budget.limit(requested);
+        if (inLists.choose(cond, false) == TEMP_TABLE) {
+            return inLists.withTempLists(cond, temp -> searchPageComplex(cond, pageable, temp));
         }
+        return inLists.readOnly(() -> searchPageComplex(cond, pageable, TempLists.NONE));
+    }
+
+    private Page<MemberTeamDto> searchPageComplex(MemberSearchCondition cond, Pageable pageable, TempLists temp) {
+        List<MemberTeamDto> content = fetchPageContent(cond, pageable, temp);
+
+        JPAQuery<Long> countQuery = query
+                .select(member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(cond.getUsername()),
+                        teamNameEq(cond.getTeamName()),
+                        ageGoe(cond.getAgeGoe()),
+                        ageLoe(cond.getAgeLoe()),
+                        inLists(cond, temp)
+                );
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> budget.run(COUNT, () -> countQuery
+                .setHint(TIMEOUT_HINT, budget.timeoutHint(COUNT))
+                .fetchOne()));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<MemberTeamDto> searchPageContent(MemberSearchCondition cond, Pageable requested) {
+        Pageable pageable = budget.limit(requested);
+        if (inLists.choose(cond, false) == TEMP_TABLE) {
+            return inLists.withTempLists(cond, temp -> fetchPageContent(cond, pageable, temp));
+        }
+        return inLists.readOnly(() -> fetchPageContent(cond, pageable, TempLists.NONE));
+    }
+
+    private List<MemberTeamDto> fetchPageContent(MemberSearchCondition cond, Pageable pageable, TempLists temp) {
+        if (idFirst(pageable)) {
+            return budget.run(PAGE, () -> fetchPageContentByIds(cond, pageable, temp));
+        }
+
+        JPAQuery<MemberTeamDto> contentQuery = query
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(cond.getUsername()),
+                        teamNameEq(cond.getTeamName()),
+                        ageGoe(cond.getAgeGoe()),
+                        ageLoe(cond.getAgeLoe()),
+                        inLists(cond, temp)
+                )
+                .orderBy(ORDER_SPECIFIERS.of(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .setHint(TIMEOUT_HINT, budget.timeoutHint(PAGE));
+
+        return budget.run(PAGE, contentQuery::fetch);
+    }
+
+    private boolean idFirst(Pageable pageable) {
+        switch (properties.getPageFetch()) {
+            case ID_FIRST:
+                return true;
+            case AUTO:
+                return pageable.getOffset() >= properties.getIdFirstMinOffset();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 1단계에서 조건, 정렬, offset/limit 을 member.id 만 select 해서 처리하고 (팀 조건이나 팀 정렬이 없으면 team 을 join 하지 않는다),
+     * 2단계에서 그 id 들의 행만 가져와 1단계 순서대로 돌려놓는다. 두 단계 사이에 지워진 회원은 빠진다.
+     */
+    private List<MemberTeamDto> fetchPageContentByIds(MemberSearchCondition cond, Pageable pageable, TempLists temp) {
+        JPAQuery<Long> idQuery = query
+                .select(member.id)
+                .from(member);
+        if (cond.getTeamName() != null || sortsByTeam(pageable.getSort())) {
+            idQuery.leftJoin(member.team, team);
+        }
+        List<Long> ids = idQuery
+                .where(
+                        usernameEq(cond.getUsername()),
+                        teamNameEq(cond.getTeamName()),
+                        ageGoe(cond.getAgeGoe()),
+                        ageLoe(cond.getAgeLoe()),
+                        inLists(cond, temp)
+                )
+                .orderBy(ORDER_SPECIFIERS.of(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .setHint(TIMEOUT_HINT, budget.timeoutHint(PAGE))
+                .fetch();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, MemberTeamDto> rows = query
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.id.in(ids))
+                .setHint(TIMEOUT_HINT, budget.timeoutHint(PAGE))
+                .fetch()
+                .stream()
+                .collect(toMap(MemberTeamDto::getMemberId, Function.identity()));
+
+        List<MemberTeamDto> content = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            MemberTeamDto row = rows.get(id);
+            if (row != null) {
+                content.add(row);
+            }
+        }
+        return content;
+    }
+
+    private static boolean sortsByTeam(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (TEAM_SORT_PROPERTIES.contains(order.getProperty())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private BooleanBuilder anyOf(List<MemberSearchCondition> conds) {
+        if (MemberSearchConditions.hasUnfiltered(conds)) {
+            return new BooleanBuilder();
+        }
+        if (conds.size() > 1 && MemberSearchConditions.differOnlyByTeamName(conds)) {
+            MemberSearchCondition first = conds.get(0);
+            Set<String> teamNames = conds.stream()
+                    .map(MemberSearchCondition::getTeamName)
+                    .collect(toSet());
+            return usernameEq(first.getUsername())
+                    .and(ageBetween(first.getAgeLoe(), first.getAgeGoe()))
+                    .and(inLists(first, TempLists.NONE))
+                    .and(team.name.in(teamNames));
+        }
+
+        BooleanBuilder any = new BooleanBuilder();
+        for (MemberSearchCondition cond : conds) {
+            any.or(usernameEq(cond.getUsername())
+                    .and(teamNameEq(cond.getTeamName()))
+                    .and(ageBetween(cond.getAgeLoe(), cond.getAgeGoe()))
+                    .and(inLists(cond, TempLists.NONE)));
+        }
+        return any;
+    }
+
+    /**
+     * in_list_value 에 써 둔 목록은 in (select ...) 로, 나머지는 MemberInLists.in 으로 비교한다.
+     */
+    private BooleanBuilder inLists(MemberSearchCondition cond, TempLists temp) {
+        return inList(member.username, cond.getUsernames(), temp.getUsernames(), inListValue.stringValue)
+                .and(inList(member.id, cond.getMemberIds(), temp.getMemberIds(), inListValue.longValue));
+    }
+
+    private static <T> BooleanBuilder inList(SimpleExpression<T> path, List<T> values, Long listId,
+                                             SimpleExpression<T> column) {
+        if (listId == null) {
+            return MemberInLists.in(path, values);
+        }
+        return new BooleanBuilder(path.in(JPAExpressions
+                .select(column)
+                .from(inListValue)
+                .where(inListValue.listId.eq(listId))));
+    }
 
     private BooleanBuilder ageGoe(Integer ageGoe) {
         return nullSafeBuilder(() -> member.age.goe(ageGoe));
@@ -0,0 +1,97 @@
+package study.querydsl.repository;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 여러 검색 조건을 한 번의 쿼리로 합쳐 조회한 결과를 조건별로 다시 나눌 때 사용한다.
+ * 각 repository 의 where 조건(null 이면 무시)과 같은 의미로 판단해야 한다.
+ */
+final class MemberSearchConditions {
+
+    private MemberSearchConditions() {
+    }
+
+    static boolean matches(MemberSearchCondition cond, MemberTeamDto row) {
+        if (cond.getUsername() != null && !cond.getUsername().equals(row.getUsername())) {
+            return false;
+        }
+        if (cond.getTeamName() != null && !cond.getTeamName().equals(row.getTeamName())) {
+            return false;
+        }
+        if (cond.getAgeGoe() != null && row.getAge() < cond.getAgeGoe()) {
+            return false;
+        }
+        if (cond.getAgeLoe() != null && row.getAge() > cond.getAgeLoe()) {
+            return false;
+        }
+        return contains(cond.getUsernames(), row.getUsername()) && contains(cond.getMemberIds(), row.getMemberId());
+    }
+
+    private static <T> boolean contains(List<T> values, T value) {
+        return values == null || values.isEmpty() || (value != null && values.contains(value));
+    }
+
+    static MemberSearchCondition copyOf(MemberSearchCondition cond) {
+        MemberSearchCondition copy = new MemberSearchCondition();
+        copy.setUsername(cond.getUsername());
+        copy.setTeamName(cond.getTeamName());
+        copy.setAgeGoe(cond.getAgeGoe());
+        copy.setAgeLoe(cond.getAgeLoe());
+        copy.setUsernames(cond.getUsernames() == null ? null : new ArrayList<>(cond.getUsernames()));
+        copy.setMemberIds(cond.getMemberIds() == null ? null : new ArrayList<>(cond.getMemberIds()));
+        return copy;
+    }
+
+    /**
+     * 팀 이름만 다르고 나머지 조건이 모두 같으면 team.name in (...) 한 번으로 합칠 수 있다.
+     */
+    static boolean differOnlyByTeamName(List<MemberSearchCondition> conds) {
+        MemberSearchCondition first = conds.get(0);
+        for (MemberSearchCondition cond : conds) {
+            if (cond.getTeamName() == null
+                    || !Objects.equals(first.getUsername(), cond.getUsername())
+                    || !Objects.equals(first.getAgeGoe(), cond.getAgeGoe())
+                    || !Objects.equals(first.getAgeLoe(), cond.getAgeLoe())
+                    || !Objects.equals(first.getUsernames(), cond.getUsernames())
+                    || !Objects.equals(first.getMemberIds(), cond.getMemberIds())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean hasUnfiltered(List<MemberSearchCondition> conds) {
+        for (MemberSearchCondition cond : conds) {
+            if (cond.getUsername() == null && cond.getTeamName() == null
+                    && cond.getAgeGoe() == null && cond.getAgeLoe() == null
+                    && isEmpty(cond.getUsernames()) && isEmpty(cond.getMemberIds())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEmpty(List<?> values) {
+        return values == null || values.isEmpty();
+    }
+
+    static List<List<MemberTeamDto>> demultiplex(List<MemberSearchCondition> conds, List<MemberTeamDto> rows) {
+        List<List<MemberTeamDto>> results = new ArrayList<>(conds.size());
+        for (int i = 0; i < conds.size(); i++) {
+            results.add(new ArrayList<>());
+        }
+        for (MemberTeamDto row : rows) {
+            for (int i = 0; i < conds.size(); i++) {
+                if (matches(conds.get(i), row)) {
+                    results.get(i).add(row);
+                }
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,274 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.StatementOptions;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static study.querydsl.repository.MemberQueryBudget.Endpoint.COUNT;
+import static study.querydsl.repository.MemberQueryBudget.Endpoint.PAGE;
+import static study.querydsl.repository.MemberQueryBudget.Endpoint.SEARCH;
+import static study.querydsl.repository.MemberSqlRepository.ORDER_SPECIFIERS;
+import static study.querydsl.repository.MemberSqlRepository.anyOf;
+import static study.querydsl.repository.MemberSqlRepository.matching;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * team id 로 나눈 shard 들 위의 MemberRepositoryCustom 구현. member.repository.mode=sharded 일 때 검색에 사용된다.
+ * <p>
+ * 팀 이름 조건이 있으면 (모든 shard 에 복제된) 팀 테이블에서 team id 를 찾아 해당 shard 만 조회하고,
+ * 없으면 모든 shard 에 동시에 보내서 합친다. 페이지는 shard 마다 offset + size 개를 같은 정렬로 읽어
+ * k-way merge 한 뒤 offset 만큼 건너뛴다. offset + size 가 query-budget.max-rows 를 넘는 깊은 페이지는 거절한다.
+ * count 는 shard 별 count 의 합이다.
+ * <p>
+ * 읽기 전용이다. 애플리케이션의 쓰기는 shard 로 가지 않으므로 shard 는 외부에서 적재해 둔 데이터만 보여 준다
+ * ({@link MemberShards} 참고). ETag 의 데이터 버전도 기본 datasource 의 쓰기로만 바뀐다.
+ */
+@RequiredArgsConstructor
+public class MemberShardedRepository implements MemberRepositoryCustom {
+
+    /**
+     * ORDER_SPECIFIERS 와 같은 property. 정렬 결과를 메모리에서 merge 할 때 쓴다.
+     */
+    private static final Map<String, Function<MemberTeamDto, Object>> SORT_KEYS = Map.of(
+            "memberId", MemberTeamDto::getMemberId,
+            "username", MemberTeamDto::getUsername,
+            "age", MemberTeamDto::getAge,
+            "teamId", MemberTeamDto::getTeamId,
+            "teamName", MemberTeamDto::getTeamName
+    );
+
+    private final MemberShards shards;
+    private final MemberQueryBudget budget;
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition cond) {
+        List<Integer> targets = route(cond);
+        int timeout = budget.timeoutMillis(SEARCH);
+        List<MemberTeamDto> rows = budget.run(SEARCH, () -> concat(shards.scatter(targets, shard ->
+                withTimeout(selectMemberTeam(shards.shard(shard)), timeout)
+                        .where(matching(cond))
+                        .limit(budget.maxRows() + 1L)
+                        .fetch())));
+        return budget.checkRows(rows);
+    }
+
+    @Override
+    public List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conds) {
+        if (conds.isEmpty()) {
+            return List.of();
+        }
+        budget.checkBatchSize(conds.size());
+
+        Set<Integer> targets = new TreeSet<>();
+        for (MemberSearchCondition cond : conds) {
+            targets.addAll(route(cond));
+        }
+        if (targets.isEmpty()) {
+            return MemberSearchConditions.demultiplex(conds, List.of());
+        }
+
+        Predicate where = anyOf(conds);
+        int timeout = budget.timeoutMillis(SEARCH);
+        List<MemberTeamDto> rows = budget.run(SEARCH, () -> concat(shards.scatter(targets, shard ->
+                withTimeout(selectMemberTeam(shards.shard(shard)), timeout)
+                        .where(where)
+                        .orderBy(member.id.asc())
+                        .limit(budget.batchLimit(conds.size()))
+                        .fetch())));
+        rows.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+        return budget.checkRowsEach(MemberSearchConditions.demultiplex(conds, rows));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition cond, Pageable pageable) {
+        return searchPageComplex(cond, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition cond, Pageable requested) {
+        Pageable pageable = budget.limit(requested);
+        List<Integer> targets = route(cond);
+        List<MemberTeamDto> content = fetchPageContent(cond, pageable, targets);
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            int timeout = budget.timeoutMillis(COUNT);
+            return budget.run(COUNT, () -> shards.scatter(targets, shard ->
+                            withTimeout(shards.shard(shard).select(member.id.count()), timeout)
+                                    .from(member)
+                                    .leftJoin(team).on(member.teamId.eq(team.id))
+                                    .where(matching(cond))
+                                    .fetchOne())
+                    .stream()
+                    .mapToLong(Long::longValue)
+                    .sum());
+        });
+    }
+
+    @Override
+    public List<MemberTeamDto> searchPageContent(MemberSearchCondition cond, Pageable pageable) {
+        return fetchPageContent(cond, budget.limit(pageable), route(cond));
+    }
+
+    private List<MemberTeamDto> fetchPageContent(MemberSearchCondition cond, Pageable pageable, List<Integer> targets) {
+        if (targets.isEmpty()) {
+            return List.of();
+        }
+        int timeout = budget.timeoutMillis(PAGE);
+        if (targets.size() == 1) {
+            SQLQueryFactory shard = shards.shard(targets.get(0));
+            return budget.run(PAGE, () -> withTimeout(selectMemberTeam(shard), timeout)
+                    .where(matching(cond))
+                    .orderBy(ORDER_SPECIFIERS.of(pageable.getSort()))
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .fetch());
+        }
+
+        budget.checkPageWindow(pageable);
+        long window = pageable.getOffset() + pageable.getPageSize();
+        List<List<MemberTeamDto>> perShard = budget.run(PAGE, () -> shards.scatter(targets, shard ->
+                withTimeout(selectMemberTeam(shards.shard(shard)), timeout)
+                        .where(matching(cond))
+                        .orderBy(ORDER_SPECIFIERS.of(pageable.getSort()))
+                        .limit(window)
+                        .fetch()));
+        return merge(perShard, comparator(pageable.getSort()), pageable.getOffset(), pageable.getPageSize());
+    }
+
+    /**
+     * 팀 이름 조건이 있으면 그 이름의 팀이 있는 shard 만. 그런 팀이 없으면 빈 목록.
+     */
+    List<Integer> route(MemberSearchCondition cond) {
+        if (cond.getTeamName() == null) {
+            return IntStream.range(0, shards.size()).boxed().collect(Collectors.toList());
+        }
+        return shards.shard(0)
+                .select(team.id)
+                .from(team)
+                .where(team.name.eq(cond.getTeamName()))
+                .fetch()
+                .stream()
+                .map(shards::shardOf)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private SQLQuery<MemberTeamDto> selectMemberTeam(SQLQueryFactory shard) {
+        return shard
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.id));
+    }
+
+    private static <T> SQLQuery<T> withTimeout(SQLQuery<T> sqlQuery, int timeoutMillis) {
+        sqlQuery.setStatementOptions(StatementOptions.builder().setQueryTimeout((timeoutMillis + 999) / 1000).build());
+        return sqlQuery;
+    }
+
+    private static List<MemberTeamDto> concat(List<List<MemberTeamDto>> perShard) {
+        List<MemberTeamDto> rows = new ArrayList<>();
+        perShard.forEach(rows::addAll);
+        return rows;
+    }
+
+    static List<MemberTeamDto> merge(List<List<MemberTeamDto>> sorted, Comparator<MemberTeamDto> comparator,
+                                     long offset, int size) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> comparator.compare(a.head(), b.head()));
+        for (List<MemberTeamDto> rows : sorted) {
+            if (!rows.isEmpty()) {
+                heads.add(new Cursor(rows));
+            }
+        }
+        List<MemberTeamDto> page = new ArrayList<>(size);
+        long skipped = 0;
+        while (!heads.isEmpty() && page.size() < size) {
+            Cursor cursor = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page.add(cursor.head());
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * OrderSpecifiers 와 같은 순서(화이트리스트 property, 마지막에 id)로 비교한다.
+     * NATIVE null 처리는 H2 기본값(null 이 가장 작은 값)을 따른다.
+     */
+    @SuppressWarnings("unchecked")
+    static Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<Object> natural = (a, b) -> ((Comparable<Object>) a).compareTo(b);
+        Comparator<MemberTeamDto> comparator = null;
+        boolean tiebreakerIncluded = false;
+        boolean lastAscending = true;
+        for (Sort.Order order : sort) {
+            Function<MemberTeamDto, Object> key = SORT_KEYS.get(order.getProperty());
+            if (key == null) {
+                continue;
+            }
+            Comparator<Object> values = order.isAscending() ? natural : natural.reversed();
+            boolean nullsFirst = order.getNullHandling() == Sort.NullHandling.NULLS_FIRST
+                    || (order.getNullHandling() == Sort.NullHandling.NATIVE && order.isAscending());
+            Comparator<Object> withNulls = nullsFirst ? Comparator.nullsFirst(values) : Comparator.nullsLast(values);
+            Comparator<MemberTeamDto> next = (x, y) -> withNulls.compare(key.apply(x), key.apply(y));
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+            tiebreakerIncluded |= order.getProperty().equals("memberId");
+            lastAscending = order.isAscending();
+        }
+        if (!tiebreakerIncluded) {
+            Comparator<MemberTeamDto> byId = Comparator.comparing(MemberTeamDto::getMemberId);
+            Comparator<MemberTeamDto> tiebreaker = lastAscending ? byId : byId.reversed();
+            comparator = comparator == null ? tiebreaker : comparator.thenComparing(tiebreaker);
+        }
+        return comparator;
+    }
+
+    private static class Cursor {
+
+        private final List<MemberTeamDto> rows;
+        private int index;
+
+        Cursor(List<MemberTeamDto> rows) {
+            this.rows = rows;
+        }
+
+        MemberTeamDto head() {
+            return rows.get(index);
+        }
+
+        boolean advance() {
+            return ++index < rows.size();
+        }
+    }
+}
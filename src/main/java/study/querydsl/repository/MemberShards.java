@@ -0,0 +1,145 @@
+package study.querydsl.repository;
+
+import com.querydsl.sql.Configuration;
+import com.querydsl.sql.SQLQueryFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.config.MemberShardingProperties;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * team id 로 나눈 회원 shard 들.
+ * <p>
+ * 회원은 team id % N 번째 shard 에, 팀이 없는 회원은 0 번 shard 에 둔다.
+ * 팀은 작은 참조 테이블이라 모든 shard 에 복제해서 각 shard 안에서 join 하고, 팀 이름으로 shard 를 찾을 수 있게 한다.
+ * 트랜잭션은 shard 단위로만 보장된다.
+ * <p>
+ * 애플리케이션의 쓰기(JPA, outbox, 팀 이동)는 기본 datasource 로만 가고 shard 에는 반영되지 않는다.
+ * shard 는 외부에서 적재해 두는 읽기 전용 사본이며, {@link #saveTeam} / {@link #saveMember} 는 그 적재와 테스트에 쓴다.
+ */
+public class MemberShards implements AutoCloseable {
+
+    private static final String[] SCHEMA = {
+            "create table if not exists team (id bigint primary key, name varchar(255), version bigint default 0 not null)",
+            "create table if not exists member (id bigint primary key, age integer not null, username varchar(255), team_id bigint,"
+                    + " version bigint default 0 not null)",
+            "create index if not exists idx_team_name on team (name, id)",
+            "create index if not exists idx_member_username on member (username, id)",
+            "create index if not exists idx_member_age on member (age, id)",
+            "create index if not exists idx_member_team_age on member (team_id, age)"
+    };
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<SQLQueryFactory> factories = new ArrayList<>();
+    private final ExecutorService executor;
+
+    public MemberShards(MemberShardingProperties properties, Configuration configuration, MeterRegistry registry) {
+        for (MemberShardingProperties.Shard shard : properties.getShards()) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("member-shard-" + dataSources.size());
+            dataSource.setJdbcUrl(shard.getUrl());
+            dataSource.setUsername(shard.getUsername());
+            dataSource.setPassword(shard.getPassword());
+            dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+            dataSource.setMetricRegistry(registry);
+
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            for (String ddl : SCHEMA) {
+                jdbc.execute(ddl);
+            }
+            dataSources.add(dataSource);
+            factories.add(new SQLQueryFactory(configuration, dataSource));
+        }
+
+        AtomicInteger sequence = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(properties.getThreads(), r -> {
+            Thread thread = new Thread(r, "member-shard-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int size() {
+        return factories.size();
+    }
+
+    public SQLQueryFactory shard(int index) {
+        return factories.get(index);
+    }
+
+    public int shardOf(Long teamId) {
+        return teamId == null ? 0 : (int) Math.floorMod(teamId, (long) factories.size());
+    }
+
+    /**
+     * 주어진 shard 들에서 task 를 동시에 실행하고 shard 순서대로 결과를 모은다. shard 가 하나면 호출한 스레드에서 실행한다.
+     */
+    public <T> List<T> scatter(Collection<Integer> shardIndexes, IntFunction<T> task) {
+        if (shardIndexes.size() == 1) {
+            return List.of(task.apply(shardIndexes.iterator().next()));
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>();
+        for (int index : shardIndexes) {
+            futures.add(CompletableFuture.supplyAsync(() -> task.apply(index), executor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * 팀은 모든 shard 에 쓴다. 애플리케이션의 쓰기 경로가 아니라 shard 를 채우는 적재용이다.
+     */
+    public void saveTeam(long id, String name) {
+        for (SQLQueryFactory shard : factories) {
+            shard.merge(team).keys(team.id).columns(team.id, team.name).values(id, name).execute();
+        }
+    }
+
+    /**
+     * 적재용. 다른 shard 에 있던 같은 id 를 먼저 지우고 대상 shard 에 쓴다.
+     * 순서가 반대면 그 사이에 모든 shard 를 읽는 검색/count 에 같은 회원이 두 번 잡힌다.
+     * (지우고 쓰는 사이에는 잠깐 보이지 않을 수 있다. shard 사이 트랜잭션은 없다)
+     */
+    public void saveMember(long id, String username, int age, Long teamId) {
+        int target = shardOf(teamId);
+        for (int i = 0; i < factories.size(); i++) {
+            if (i != target) {
+                factories.get(i).delete(member).where(member.id.eq(id)).execute();
+            }
+        }
+        factories.get(target).merge(member).keys(member.id)
+                .columns(member.id, member.username, member.age, member.teamId)
+                .values(id, username, age, teamId)
+                .execute();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
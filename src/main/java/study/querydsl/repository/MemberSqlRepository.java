@@ -0,0 +1,199 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.sql.SQLQuery;
+import com.querydsl.sql.SQLQueryFactory;
+import com.querydsl.sql.StatementOptions;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberQueryBudget.Endpoint;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toSet;
+import static study.querydsl.repository.MemberQueryBudget.Endpoint.COUNT;
+import static study.querydsl.repository.MemberQueryBudget.Endpoint.PAGE;
+import static study.querydsl.repository.MemberQueryBudget.Endpoint.SEARCH;
+import static study.querydsl.repository.MemberRepositoryImpl.nullSafeBuilder;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+/**
+ * MemberRepositoryCustom 의 querydsl-sql 구현.
+ * <p>
+ * JPQL 파싱, 영속성 컨텍스트를 거치지 않고 SQL 을 바로 실행해 DTO 로 받는다.
+ * member.repository.mode=sql 일 때 검색에 사용된다.
+ * usernames / memberIds 목록은 in_list_value 를 쓰지 않고 항상 MemberInLists.in (padded in 을 or 로 묶은 것) 으로 비교한다.
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberSqlRepository implements MemberRepositoryCustom {
+
+    static final OrderSpecifiers ORDER_SPECIFIERS = new OrderSpecifiers(Map.of(
+            "memberId", member.id,
+            "username", member.username,
+            "age", member.age,
+            "teamId", team.id,
+            "teamName", team.name
+    ), member.id);
+
+    private final SQLQueryFactory query;
+    private final MemberQueryBudget budget;
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition cond) {
+        SQLQuery<MemberTeamDto> searchQuery = selectMemberTeam()
+                .where(
+                        usernameEq(cond.getUsername()),
+                        teamNameEq(cond.getTeamName()),
+                        ageBetween(cond.getAgeLoe(), cond.getAgeGoe()),
+                        inLists(cond))
+                .limit(budget.maxRows() + 1L);
+
+        return budget.checkRows(budget.run(SEARCH, () -> withTimeout(searchQuery, SEARCH).fetch()));
+    }
+
+    @Override
+    public List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conds) {
+        if (conds.isEmpty()) {
+            return List.of();
+        }
+        budget.checkBatchSize(conds.size());
+
+        SQLQuery<MemberTeamDto> batchQuery = selectMemberTeam()
+                .where(anyOf(conds))
+                .orderBy(member.id.asc())
+                .limit(budget.batchLimit(conds.size()));
+
+        List<MemberTeamDto> rows = budget.run(SEARCH, () -> withTimeout(batchQuery, SEARCH).fetch());
+        return budget.checkRowsEach(MemberSearchConditions.demultiplex(conds, rows));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition cond, Pageable pageable) {
+        return searchPageComplex(cond, pageable);
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition cond, Pageable requested) {
+        Pageable pageable = budget.limit(requested);
+        List<MemberTeamDto> content = fetchPageContent(cond, pageable);
+
+        SQLQuery<Long> countQuery = query
+                .select(member.id.count())
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.id))
+                .where(
+                        usernameEq(cond.getUsername()),
+                        teamNameEq(cond.getTeamName()),
+                        ageBetween(cond.getAgeLoe(), cond.getAgeGoe()),
+                        inLists(cond));
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> budget.run(COUNT, () -> withTimeout(countQuery, COUNT).fetchOne()));
+    }
+
+    @Override
+    public List<MemberTeamDto> searchPageContent(MemberSearchCondition cond, Pageable pageable) {
+        return fetchPageContent(cond, budget.limit(pageable));
+    }
+
+    private List<MemberTeamDto> fetchPageContent(MemberSearchCondition cond, Pageable pageable) {
+        SQLQuery<MemberTeamDto> contentQuery = selectMemberTeam()
+                .where(
+                        usernameEq(cond.getUsername()),
+                        teamNameEq(cond.getTeamName()),
+                        ageBetween(cond.getAgeLoe(), cond.getAgeGoe()),
+                        inLists(cond))
+                .orderBy(ORDER_SPECIFIERS.of(pageable.getSort()))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize());
+
+        return budget.run(PAGE, () -> withTimeout(contentQuery, PAGE).fetch());
+    }
+
+    private SQLQuery<MemberTeamDto> selectMemberTeam() {
+        return query
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(team).on(member.teamId.eq(team.id));
+    }
+
+    /**
+     * JDBC query timeout 은 초 단위라서 올림한다.
+     */
+    private <T> SQLQuery<T> withTimeout(SQLQuery<T> sqlQuery, Endpoint endpoint) {
+        int seconds = (budget.timeoutMillis(endpoint) + 999) / 1000;
+        sqlQuery.setStatementOptions(StatementOptions.builder().setQueryTimeout(seconds).build());
+        return sqlQuery;
+    }
+
+    static BooleanBuilder matching(MemberSearchCondition cond) {
+        return usernameEq(cond.getUsername())
+                .and(teamNameEq(cond.getTeamName()))
+                .and(ageBetween(cond.getAgeLoe(), cond.getAgeGoe()))
+                .and(inLists(cond));
+    }
+
+    static BooleanBuilder anyOf(List<MemberSearchCondition> conds) {
+        if (MemberSearchConditions.hasUnfiltered(conds)) {
+            return new BooleanBuilder();
+        }
+        if (conds.size() > 1 && MemberSearchConditions.differOnlyByTeamName(conds)) {
+            MemberSearchCondition first = conds.get(0);
+            Set<String> teamNames = conds.stream()
+                    .map(MemberSearchCondition::getTeamName)
+                    .collect(toSet());
+            return usernameEq(first.getUsername())
+                    .and(ageBetween(first.getAgeLoe(), first.getAgeGoe()))
+                    .and(inLists(first))
+                    .and(team.name.in(teamNames));
+        }
+
+        BooleanBuilder any = new BooleanBuilder();
+        for (MemberSearchCondition cond : conds) {
+            any.or(matching(cond));
+        }
+        return any;
+    }
+
+    private static BooleanBuilder inLists(MemberSearchCondition cond) {
+        return MemberInLists.in(member.username, cond.getUsernames())
+                .and(MemberInLists.in(member.id, cond.getMemberIds()));
+    }
+
+    private static BooleanBuilder ageGoe(Integer ageGoe) {
+        return nullSafeBuilder(() -> member.age.goe(ageGoe));
+    }
+
+    private static BooleanBuilder ageLoe(Integer ageLoe) {
+        return nullSafeBuilder(() -> member.age.loe(ageLoe));
+    }
+
+    private static BooleanBuilder ageBetween(Integer ageLoe, Integer ageGoe) {
+        return ageGoe(ageGoe).and(ageLoe(ageLoe));
+    }
+
+    private static BooleanBuilder teamNameEq(String teamName) {
+        return nullSafeBuilder(() -> team.name.eq(teamName));
+    }
+
+    private static BooleanBuilder usernameEq(String username) {
+        return nullSafeBuilder(() -> member.username.eq(username));
+    }
+}
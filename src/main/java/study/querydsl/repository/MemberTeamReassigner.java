@@ -0,0 +1,107 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.MemberReassignProperties;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.LockModeType;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 회원의 팀 이동.
+ * <p>
+ * 기본은 낙관적 락으로, 커밋 시 version 이 바뀌어 있으면 새 트랜잭션에서 다시 읽어 재시도한다.
+ * 호출하는 쪽에 트랜잭션이 있으면 재시도할 수 없으므로 트랜잭션 밖에서 불러야 한다.
+ */
+@Component
+public class MemberTeamReassigner {
+
+    private final EntityManager em;
+    private final TransactionTemplate tx;
+    private final MemberReassignProperties properties;
+
+    private final Counter retries;
+    private final Counter exhausted;
+    private final Counter unchanged;
+
+    public MemberTeamReassigner(EntityManager em, TransactionTemplate tx, MemberReassignProperties properties,
+                                MeterRegistry registry) {
+        this.em = em;
+        this.tx = tx;
+        this.properties = properties;
+        this.retries = registry.counter("member.reassign.retries");
+        this.exhausted = registry.counter("member.reassign.exhausted");
+        this.unchanged = registry.counter("member.reassign.unchanged");
+    }
+
+    /**
+     * 이미 그 팀이면 아무것도 바꾸지 않고(version 도 그대로) member.reassign.unchanged 만 올린다.
+     *
+     * @return 성공할 때까지 시도한 횟수
+     * @throws OptimisticLockingFailureException maxAttempts 번 모두 충돌한 경우
+     * @throws IllegalStateException 트랜잭션 안에서 부른 경우
+     */
+    public int reassign(Long memberId, Long teamId) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("reassign retries in its own transactions, call it outside a transaction");
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Boolean changed = tx.execute(status -> change(memberId, teamId, LockModeType.NONE));
+                if (!Boolean.TRUE.equals(changed)) {
+                    unchanged.increment();
+                }
+                return attempt;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= properties.getMaxAttempts()) {
+                    exhausted.increment();
+                    throw e;
+                }
+                retries.increment();
+                sleep(backoffMillis(attempt));
+            }
+        }
+    }
+
+    /**
+     * select ... for update 로 회원 행을 잠그고 바꾼다. 비교용.
+     */
+    public void reassignLocked(Long memberId, Long teamId) {
+        tx.executeWithoutResult(status -> change(memberId, teamId, LockModeType.PESSIMISTIC_WRITE));
+    }
+
+    private boolean change(Long memberId, Long teamId, LockModeType lockMode) {
+        Member member = em.find(Member.class, memberId, lockMode);
+        if (member == null) {
+            throw new EntityNotFoundException("member " + memberId);
+        }
+        if (member.getTeam() != null && teamId.equals(member.getTeam().getId())) {
+            return false;
+        }
+        member.changeTeam(em.getReference(Team.class, teamId));
+        return true;
+    }
+
+    long backoffMillis(int attempt) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long backoff = Math.min(properties.getMaxBackoff().toMillis(), initial << Math.min(attempt - 1, 30));
+        return ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while backing off team reassignment", e);
+        }
+    }
+}
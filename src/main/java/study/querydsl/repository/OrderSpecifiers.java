@@ -0,0 +1,73 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Sort} 를 Querydsl {@link OrderSpecifier} 로 변환한다.
+ * <p>
+ * 화이트리스트에 등록된 property 만 정렬에 사용하고 (나머지는 무시), 항상 id 를 마지막 정렬 기준으로 붙여
+ * 페이지 경계에서도 순서가 결정적이도록 한다. 변환 결과는 property / 방향 단위로 캐시한다.
+ */
+public class OrderSpecifiers {
+
+    private final Map<String, ComparableExpressionBase<?>> whitelist;
+    private final ComparableExpressionBase<?> tiebreaker;
+    private final Map<Key, OrderSpecifier<?>> cache = new ConcurrentHashMap<>();
+
+    public OrderSpecifiers(Map<String, ComparableExpressionBase<?>> whitelist, ComparableExpressionBase<?> tiebreaker) {
+        this.whitelist = Map.copyOf(whitelist);
+        this.tiebreaker = tiebreaker;
+    }
+
+    public OrderSpecifier<?>[] of(Sort sort) {
+        List<OrderSpecifier<?>> specifiers = new ArrayList<>();
+        boolean tiebreakerIncluded = false;
+
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = whitelist.get(order.getProperty());
+            if (path == null) {
+                continue;
+            }
+            specifiers.add(cache.computeIfAbsent(
+                    new Key(order.getProperty(), order.getDirection(), order.getNullHandling()),
+                    key -> toOrderSpecifier(path, key)));
+            tiebreakerIncluded |= path.equals(tiebreaker);
+        }
+
+        if (!tiebreakerIncluded) {
+            boolean ascending = specifiers.isEmpty() || specifiers.get(specifiers.size() - 1).isAscending();
+            specifiers.add(ascending ? tiebreaker.asc() : tiebreaker.desc());
+        }
+        return specifiers.toArray(new OrderSpecifier<?>[0]);
+    }
+
+    private static OrderSpecifier<?> toOrderSpecifier(ComparableExpressionBase<?> path, Key key) {
+        OrderSpecifier<?> specifier = key.direction.isAscending() ? path.asc() : path.desc();
+        switch (key.nullHandling) {
+            case NULLS_FIRST:
+                return specifier.nullsFirst();
+            case NULLS_LAST:
+                return specifier.nullsLast();
+            default:
+                return specifier;
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+
+        private final String property;
+        private final Sort.Direction direction;
+        private final Sort.NullHandling nullHandling;
+    }
+}
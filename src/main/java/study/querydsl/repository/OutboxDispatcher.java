@@ -0,0 +1,220 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.MemberOutboxProperties;
+import study.querydsl.entity.OutboxEvent;
+import study.querydsl.entity.QOutboxEvent;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.querydsl.jpa.JPAExpressions.selectOne;
+import static study.querydsl.entity.QOutboxEvent.outboxEvent;
+
+/**
+ * outbox_event 를 id 순서로 batch 단위로 읽어 OutboxPublisher 로 내보낸다.
+ * <p>
+ * 배치는 aggregate(type, id) 별로 나눠 parallelism 만큼 동시에 보내고, 같은 aggregate 안에서는 순서대로 하나씩 보낸다.
+ * 실패하면 그 이벤트는 backoff 후 재시도하고, 같은 aggregate 의 뒤 이벤트는 그때까지 보내지 않는다.
+ * 인스턴스 하나에서만 dispatch 한다고 가정한다.
+ * 호출하는 쪽 없이 polling 을 시작해야 하므로 lazy-initialization 에서도 바로 만든다.
+ */
+@Slf4j
+@Lazy(false)
+@Component
+public class OutboxDispatcher {
+
+    private final JPAQueryFactory query;
+    private final TransactionTemplate tx;
+    private final OutboxPublisher publisher;
+    private final MemberOutboxProperties properties;
+
+    private final Counter dispatched;
+    private final Counter failed;
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService workers;
+
+    public OutboxDispatcher(JPAQueryFactory query, TransactionTemplate tx, OutboxPublisher publisher,
+                            MemberOutboxProperties properties, MeterRegistry registry) {
+        this.query = query;
+        this.tx = tx;
+        this.publisher = publisher;
+        this.properties = properties;
+        this.dispatched = registry.counter("member.outbox.dispatched");
+        this.failed = registry.counter("member.outbox.failed");
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger sequence = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(properties.getParallelism(), r -> {
+            Thread thread = new Thread(r, "outbox-dispatch-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (properties.isDispatchEnabled()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "outbox-poll");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduleNext();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        workers.shutdownNow();
+    }
+
+    /**
+     * 보낼 수 있는 이벤트를 한 배치 읽어 내보낸다.
+     *
+     * @return 읽은 이벤트 수. batchSize 와 같으면 더 밀려 있을 수 있다.
+     */
+    public int dispatchBatch() {
+        long now = System.currentTimeMillis();
+        List<OutboxEvent> batch = pending(now);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            byAggregate.computeIfAbsent(event.getAggregateType() + "#" + event.getAggregateId(), key -> new ArrayList<>())
+                    .add(event);
+        }
+
+        List<Long> succeeded = new ArrayList<>();
+        List<OutboxEvent> failures = new ArrayList<>();
+        List<CompletableFuture<Void>> groups = new ArrayList<>();
+        for (List<OutboxEvent> events : byAggregate.values()) {
+            groups.add(CompletableFuture.runAsync(() -> dispatchInOrder(events, succeeded, failures), workers));
+        }
+        CompletableFuture.allOf(groups.toArray(new CompletableFuture[0])).join();
+
+        tx.executeWithoutResult(status -> markResults(succeeded, failures, System.currentTimeMillis()));
+        dispatched.increment(succeeded.size());
+        failed.increment(failures.size());
+        return batch.size();
+    }
+
+    private List<OutboxEvent> pending(long now) {
+        QOutboxEvent blocking = new QOutboxEvent("blocking");
+        return query
+                .selectFrom(outboxEvent)
+                .where(
+                        outboxEvent.dispatchedAt.isNull(),
+                        outboxEvent.nextAttemptAt.loe(now),
+                        selectOne()
+                                .from(blocking)
+                                .where(
+                                        blocking.aggregateType.eq(outboxEvent.aggregateType),
+                                        sameAggregateId(blocking),
+                                        blocking.dispatchedAt.isNull(),
+                                        blocking.nextAttemptAt.gt(now),
+                                        blocking.id.lt(outboxEvent.id))
+                                .notExists())
+                .orderBy(outboxEvent.id.asc())
+                .limit(properties.getBatchSize())
+                .fetch();
+    }
+
+    /**
+     * bulk 문 이벤트는 aggregateId 가 null 이고 null = null 은 참이 아니므로, 둘 다 null 인 경우도 같은 aggregate 로 본다.
+     * (dispatchBatch 에서 "type#null" 로 묶는 것과 같은 기준)
+     */
+    private static BooleanExpression sameAggregateId(QOutboxEvent blocking) {
+        return blocking.aggregateId.eq(outboxEvent.aggregateId)
+                .or(blocking.aggregateId.isNull().and(outboxEvent.aggregateId.isNull()));
+    }
+
+    private void dispatchInOrder(List<OutboxEvent> events, List<Long> succeeded, List<OutboxEvent> failures) {
+        for (OutboxEvent event : events) {
+            try {
+                publisher.publish(event);
+            } catch (Exception e) {
+                log.warn("outbox {} 전송 실패 ({}회): {}", event.getId(), event.getAttempts() + 1, e.toString());
+                synchronized (failures) {
+                    failures.add(event);
+                }
+                return;
+            }
+            synchronized (succeeded) {
+                succeeded.add(event.getId());
+            }
+        }
+    }
+
+    private void markResults(List<Long> succeeded, List<OutboxEvent> failures, long now) {
+        if (!succeeded.isEmpty()) {
+            query.update(outboxEvent)
+                    .set(outboxEvent.dispatchedAt, now)
+                    .where(outboxEvent.id.in(succeeded))
+                    .execute();
+        }
+        for (OutboxEvent event : failures) {
+            int attempts = event.getAttempts() + 1;
+            query.update(outboxEvent)
+                    .set(outboxEvent.attempts, attempts)
+                    .set(outboxEvent.nextAttemptAt, now + backoffMillis(attempts))
+                    .where(outboxEvent.id.eq(event.getId()))
+                    .execute();
+        }
+    }
+
+    long backoffMillis(int attempts) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long backoff = Math.min(properties.getMaxBackoff().toMillis(), initial << Math.min(attempts - 1, 30));
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return (long) (backoff * jitter);
+    }
+
+    public long deleteDispatchedBefore(long timestamp) {
+        Long deleted = tx.execute(status -> query.delete(outboxEvent)
+                .where(outboxEvent.dispatchedAt.lt(timestamp))
+                .execute());
+        return deleted == null ? 0 : deleted;
+    }
+
+    private void poll() {
+        try {
+            while (dispatchBatch() == properties.getBatchSize() && !Thread.currentThread().isInterrupted()) {
+                log.debug("outbox 배치가 가득 차서 바로 다시 읽는다");
+            }
+            deleteDispatchedBefore(System.currentTimeMillis() - properties.getRetention().toMillis());
+        } catch (RuntimeException e) {
+            log.warn("outbox dispatch 실패", e);
+        } finally {
+            scheduleNext();
+        }
+    }
+
+    private void scheduleNext() {
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this::poll, properties.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package study.querydsl.repository;
+
+import study.querydsl.entity.OutboxEvent;
+
+/**
+ * outbox 이벤트를 외부로 내보낸다. 예외를 던지면 backoff 후 다시 시도한다.
+ * 같은 이벤트가 두 번 이상 전달될 수 있으므로 받는 쪽은 outbox id 로 중복을 걸러야 한다.
+ */
+public interface OutboxPublisher {
+
+    void publish(OutboxEvent event) throws Exception;
+}
@@ -0,0 +1,68 @@
+package study.querydsl.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.querydsl.config.MemberOutboxProperties;
+import study.querydsl.dto.ChangeEvent;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 변경 이벤트를 outbox_event 에 insert 한다.
+ * <p>
+ * flush 도중(엔티티 리스너)에 불리므로 영속성 컨텍스트를 건드리지 않고 JDBC 로 쓴다.
+ * JpaTransactionManager 가 트랜잭션의 커넥션을 노출하므로 엔티티 변경과 같은 트랜잭션에서 커밋/롤백된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private static final String INSERT = "insert into outbox_event" +
+            " (aggregate_type, aggregate_id, event_type, payload, created_at, attempts, next_attempt_at)" +
+            " values (?, ?, ?, ?, ?, 0, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+    private final MemberOutboxProperties properties;
+
+    public void append(ChangeEvent event, Object entity) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        jdbc.update(INSERT,
+                event.getEntity(),
+                event.getEntityId(),
+                event.getEntity() + "." + event.getOperation(),
+                payload(event, entity),
+                now,
+                now);
+    }
+
+    private String payload(ChangeEvent event, Object entity) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("id", event.getEntityId());
+        payload.put("operation", event.getOperation());
+        if (entity instanceof Member) {
+            Member member = (Member) entity;
+            payload.put("username", member.getUsername());
+            payload.put("age", member.getAge());
+            payload.put("teamId", member.getTeam() == null ? null : member.getTeam().getId());
+        } else if (entity instanceof Team) {
+            payload.put("name", ((Team) entity).getName());
+        } else {
+            payload.put("rows", event.getRows());
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("cannot serialize outbox payload for " + event, e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 요청이 예산(배치 크기, 최대 row 수)을 넘은 경우. 마감/timeout 은 {@link QueryDeadlineExceededException}.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(String message) {
+        super(message);
+    }
+
+    public QueryBudgetExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
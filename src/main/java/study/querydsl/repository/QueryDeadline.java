@@ -0,0 +1,39 @@
+package study.querydsl.repository;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드에서 처리중인 요청의 마감 시각.
+ * 요청 단위 예산을 그 안에서 실행되는 각 쿼리의 timeout 으로 전파하는데 사용한다.
+ */
+public final class QueryDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private QueryDeadline() {
+    }
+
+    public static <T> T runWithin(Duration timeout, Supplier<T> task) {
+        Long previous = DEADLINE.get();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        DEADLINE.set(previous == null ? deadline : Math.min(previous, deadline));
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 남은 시간. 마감이 설정되지 않았으면 null
+     */
+    public static Duration remaining() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? null : Duration.ofNanos(deadline - System.nanoTime());
+    }
+}
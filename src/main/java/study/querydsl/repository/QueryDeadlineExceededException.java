@@ -0,0 +1,19 @@
+package study.querydsl.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 요청 마감이 지났거나 쿼리가 timeout 으로 끊긴 경우. 요청이 잘못된 게 아니므로 503 으로 응답한다.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class QueryDeadlineExceededException extends QueryBudgetExceededException {
+
+    public QueryDeadlineExceededException(String message) {
+        super(message);
+    }
+
+    public QueryDeadlineExceededException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.ForeignKey;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+import static com.querydsl.core.types.PathMetadataFactory.forVariable;
+
+/**
+ * MEMBER 테이블의 querydsl-sql 메타데이터. codegen 대신 직접 작성하므로 Member 엔티티(BaseIdEntity 포함) 매핑과 함께 고친다.
+ * <pre>
+ * PK    ID
+ * FK    TEAM_ID -> TEAM.ID
+ * index idx_member_username (USERNAME, ID), idx_member_age (AGE, ID), idx_member_team_age (TEAM_ID, AGE)
+ * </pre>
+ * 컬럼 순서는 Hibernate 가 만드는 DDL 에 맡기므로 column index 는 적지 않는다. 조회/저장은 항상 컬럼을 지정한다.
+ */
+public class SMember extends RelationalPathBase<SMember> {
+
+    private static final long serialVersionUID = 1927304841L;
+
+    public static final SMember member = new SMember("MEMBER");
+
+    public final NumberPath<Integer> age = createNumber("age", Integer.class);
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    public final NumberPath<Long> teamId = createNumber("teamId", Long.class);
+
+    public final StringPath username = createString("username");
+
+    public final NumberPath<Long> version = createNumber("version", Long.class);
+
+    public final PrimaryKey<SMember> pkMember = createPrimaryKey(id);
+
+    public final ForeignKey<STeam> fkMemberTeam = createForeignKey(teamId, "ID");
+
+    public SMember(String variable) {
+        super(SMember.class, forVariable(variable), "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public SMember(String variable, String schema, String table) {
+        super(SMember.class, forVariable(variable), schema, table);
+        addMetadata();
+    }
+
+    public SMember(Path<? extends SMember> path) {
+        super(path.getType(), path.getMetadata(), "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public SMember(PathMetadata metadata) {
+        super(SMember.class, metadata, "PUBLIC", "MEMBER");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(id, ColumnMetadata.named("ID").ofType(Types.BIGINT).withSize(19).notNull());
+        addMetadata(age, ColumnMetadata.named("AGE").ofType(Types.INTEGER).withSize(10).notNull());
+        addMetadata(username, ColumnMetadata.named("USERNAME").ofType(Types.VARCHAR).withSize(255));
+        addMetadata(teamId, ColumnMetadata.named("TEAM_ID").ofType(Types.BIGINT).withSize(19));
+        addMetadata(version, ColumnMetadata.named("VERSION").ofType(Types.BIGINT).withSize(19).notNull());
+    }
+}
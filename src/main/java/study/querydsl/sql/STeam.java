@@ -0,0 +1,61 @@
+package study.querydsl.sql;
+
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.sql.ColumnMetadata;
+import com.querydsl.sql.PrimaryKey;
+import com.querydsl.sql.RelationalPathBase;
+
+import java.sql.Types;
+
+import static com.querydsl.core.types.PathMetadataFactory.forVariable;
+
+/**
+ * TEAM 테이블의 querydsl-sql 메타데이터. codegen 대신 직접 작성하므로 Team 엔티티(BaseIdEntity 포함) 매핑과 함께 고친다.
+ * <pre>
+ * PK    ID
+ * index idx_team_name (NAME, ID)
+ * </pre>
+ */
+public class STeam extends RelationalPathBase<STeam> {
+
+    private static final long serialVersionUID = -1545632651L;
+
+    public static final STeam team = new STeam("TEAM");
+
+    public final NumberPath<Long> id = createNumber("id", Long.class);
+
+    public final StringPath name = createString("name");
+
+    public final NumberPath<Long> version = createNumber("version", Long.class);
+
+    public final PrimaryKey<STeam> pkTeam = createPrimaryKey(id);
+
+    public STeam(String variable) {
+        super(STeam.class, forVariable(variable), "PUBLIC", "TEAM");
+        addMetadata();
+    }
+
+    public STeam(String variable, String schema, String table) {
+        super(STeam.class, forVariable(variable), schema, table);
+        addMetadata();
+    }
+
+    public STeam(Path<? extends STeam> path) {
+        super(path.getType(), path.getMetadata(), "PUBLIC", "TEAM");
+        addMetadata();
+    }
+
+    public STeam(PathMetadata metadata) {
+        super(STeam.class, metadata, "PUBLIC", "TEAM");
+        addMetadata();
+    }
+
+    public void addMetadata() {
+        addMetadata(id, ColumnMetadata.named("ID").ofType(Types.BIGINT).withSize(19).notNull());
+        addMetadata(name, ColumnMetadata.named("NAME").ofType(Types.VARCHAR).withSize(255));
+        addMetadata(version, ColumnMetadata.named("VERSION").ofType(Types.BIGINT).withSize(19).notNull());
+    }
+}
@@ -0,0 +1,108 @@
+package study.querydsl;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 기동 시작부터 /v1/members 가 처음 200 을 돌려줄 때까지, 그리고 InitData 가 넣은 회원이 응답에 보일 때까지의 시간을
+ * local 과 local,fast-start 로 비교한다. local 은 기동 중에 넣으므로 두 시간이 같고,
+ * fast-start 는 기동 후 별도 스레드에서 넣으므로 첫 200 은 빈 목록일 수 있다.
+ * 같은 JVM 에서 번갈아 띄우므로 JIT 워밍업 영향을 줄이려고 중앙값을 본다.
+ * ./gradlew benchmark
+ */
+@Tag("benchmark")
+class StartupTimeBenchmarkTest {
+
+    static final int ROUNDS = 5;
+
+    /**
+     * InitData 가 마지막으로 넣는 회원. 한 트랜잭션으로 넣으므로 이 회원이 보이면 전부 보인다.
+     */
+    static final String LAST_SEEDED = "\"member99\"";
+
+    final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void time_to_first_response() throws Exception {
+        List<Long> standard = new ArrayList<>();
+        List<Long> standardSeeded = new ArrayList<>();
+        List<Long> fastStart = new ArrayList<>();
+        List<Long> fastStartSeeded = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            long[] local = timeToFirstResponse("startup-" + i, "local");
+            standard.add(local[0]);
+            standardSeeded.add(local[1]);
+            long[] fast = timeToFirstResponse("startup-fast-" + i, "local", "fast-start");
+            fastStart.add(fast[0]);
+            fastStartSeeded.add(fast[1]);
+        }
+        System.out.printf("[startup] first 200: local %d ms, local,fast-start %d ms (median of %d)%n",
+                median(standard), median(fastStart), ROUNDS);
+        System.out.printf("[startup] seeded rows: local %d ms, local,fast-start %d ms (median of %d)%n",
+                median(standardSeeded), median(fastStartSeeded), ROUNDS);
+    }
+
+    /**
+     * @return {첫 200 까지, InitData 의 회원이 응답에 보일 때까지} ms
+     */
+    private long[] timeToFirstResponse(String database, String... profiles) throws Exception {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(HelloQuerydslApplication.class)
+                .profiles(profiles)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "decorator.datasource.p6spy.enable-logging=false",
+                        "spring.main.banner-mode=off")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/v1/members")).build();
+            HttpResponse<String> response = send(request);
+            while (response == null || response.statusCode() != 200) {
+                Thread.sleep(1);
+                response = send(request);
+            }
+            long firstResponse = (System.nanoTime() - start) / 1_000_000;
+
+            while (response == null || response.statusCode() != 200 || !response.body().contains(LAST_SEEDED)) {
+                Thread.sleep(1);
+                response = send(request);
+            }
+            long seeded = (System.nanoTime() - start) / 1_000_000;
+            assertThat(firstResponse).isPositive();
+            assertThat(seeded).isGreaterThanOrEqualTo(firstResponse);
+            return new long[]{firstResponse, seeded};
+        }
+    }
+
+    /**
+     * 아직 받을 준비가 안 됐으면 null
+     */
+    private HttpResponse<String> send(HttpRequest request) throws InterruptedException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
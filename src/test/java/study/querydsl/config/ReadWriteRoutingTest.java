@@ -0,0 +1,149 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.DataVersions;
+import study.querydsl.repository.MemberRepositoryCustom;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * primary, replica 를 각각 in-memory H2 로 띄우고 replica 는 SCRIPT 로 primary 를 통째로 복사해 동기화한다.
+ * 복사하지 않는 동안에는 replica 의 heartbeat 가 멈추므로 지연이 계속 늘어난다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rw-primary;DB_CLOSE_DELAY=-1",
+        "member.datasource.replica.url=" + ReadWriteRoutingTest.REPLICA_URL,
+        "member.datasource.max-lag=1s",
+        "member.datasource.heartbeat-interval=50ms",
+        "decorator.datasource.p6spy.enable-logging=false"
+})
+class ReadWriteRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:rw-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    ReplicatedDataSources dataSources;
+
+    @Autowired
+    MemberRepositoryCustom repository;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    DataVersions versions;
+
+    JdbcTemplate primary;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        primary = new JdbcTemplate(dataSources.getPrimary());
+        primary.update("delete from member");
+        primary.update("delete from team");
+        primary.update("insert into team (id, name) values (1, '해바라기반')");
+        primary.update("insert into member (id, username, age, team_id) values (10, '짱구', 5, 1)");
+        syncReplica();
+    }
+
+    @Test
+    void readOnly_검색은_replica() {
+        primary.update("insert into member (id, username, age, team_id) values (11, '철수', 5, 1)");
+        double before = routed("replica");
+
+        assertThat(search("짱구")).hasSize(1);
+        assertThat(search("철수")).isEmpty();
+        assertThat(routed("replica")).isGreaterThan(before);
+    }
+
+    @Test
+    void replica_지연이_크면_primary() throws InterruptedException {
+        primary.update("insert into member (id, username, age, team_id) values (11, '철수', 5, 1)");
+
+        Thread.sleep(1_500);
+
+        assertThat(dataSources.getLagMonitor().lagMillis()).isGreaterThan(1_000);
+        assertThat(search("철수")).hasSize(1);
+    }
+
+    /**
+     * DataVersions 가 replica 보다 앞서 있으면 ETag 와 데이터가 어긋나므로, 쓴 스레드가 아니어도 primary 에서 읽는다.
+     */
+    @Test
+    void 커밋된_변경을_replica_가_받기_전에는_어느_스레드의_읽기도_primary() {
+        CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> em.persist(new Member("훈이", 5)))).join();
+        double before = routed("primary");
+
+        assertThat(search("훈이")).hasSize(1);
+        assertThat(CompletableFuture.supplyAsync(() -> search("훈이")).join()).hasSize(1);
+        assertThat(registry.find("member.datasource.route").tag("reason", "replica_behind").counter()).isNotNull();
+        assertThat(routed("primary")).isGreaterThan(before);
+    }
+
+    @Test
+    void replica_가_변경을_받으면_다시_replica() throws InterruptedException {
+        tx.executeWithoutResult(status -> em.persist(new Member("훈이", 5)));
+        syncReplica();
+        double before = routed("replica");
+
+        assertThat(search("훈이")).hasSize(1);
+        assertThat(routed("replica")).isGreaterThan(before);
+    }
+
+    private List<MemberTeamDto> search(String username) {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setUsername(username);
+        return repository.search(cond);
+    }
+
+    private double routed(String route) {
+        return registry.find("member.datasource.route").tag("route", route).counters().stream()
+                .mapToDouble(counter -> counter.count())
+                .sum();
+    }
+
+    /**
+     * 마지막 데이터 변경 이후의 heartbeat 가 primary 에 써진 뒤에 복사해야 replica 가 그 변경을 가진 것으로 판단된다.
+     */
+    private void syncReplica() throws InterruptedException {
+        long changedAt = versions.lastModified();
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (primaryBeatAt() <= changedAt && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        List<String> script = primary.queryForList("SCRIPT", String.class);
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+
+        while ((dataSources.getLagMonitor().lagMillis() > 500 || dataSources.getLagMonitor().replicatedAt() <= changedAt)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private long primaryBeatAt() {
+        List<Long> beatAt = primary.queryForList("select beat_at from replica_heartbeat where id = 1", Long.class);
+        return beatAt.isEmpty() ? 0 : beatAt.get(0);
+    }
+}
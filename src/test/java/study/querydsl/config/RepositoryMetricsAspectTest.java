@@ -0,0 +1,87 @@
+package study.querydsl.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Test
+    void 조건의_모양과_결과_행_수를_기록한다() {
+        Team team = new Team("해바라기반");
+        em.persist(team);
+        em.persist(new Member("짱구", 5, team));
+        em.persist(new Member("유리", 5, team));
+        em.persist(new Member("철수", 6, team));
+
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("해바라기반");
+        cond.setAgeLoe(5);
+        long before = calls("MemberRepositoryImpl", "search", "teamName+ageLoe");
+
+        assertThat(memberRepository.search(cond)).hasSize(2);
+
+        assertThat(calls("MemberRepositoryImpl", "search", "teamName+ageLoe")).isEqualTo(before + 1);
+        DistributionSummary size = registry.get("member.repository.result.size")
+                .tags("class", "MemberRepositoryImpl", "method", "search")
+                .summary();
+        assertThat(size.max()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void 조건이_없는_메서드와_페이지() {
+        long findAll = calls("MemberJpaRepository", "findAll", "none");
+        long page = calls("MemberRepositoryImpl", "searchPageComplex", "empty");
+
+        memberJpaRepository.findAll();
+        memberRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(0, 10));
+
+        assertThat(calls("MemberJpaRepository", "findAll", "none")).isEqualTo(findAll + 1);
+        assertThat(calls("MemberRepositoryImpl", "searchPageComplex", "empty")).isEqualTo(page + 1);
+    }
+
+    @Test
+    void 조건_목록은_batch_이고_행_수를_합한다() {
+        assertThat(RepositoryMetricsAspect.shapeOf(new Object[]{List.of(new MemberSearchCondition())}))
+                .isEqualTo(RepositoryMetricsAspect.shapeOf(new Object[]{List.of(new MemberSearchCondition(), new MemberSearchCondition())}));
+        assertThat(RepositoryMetricsAspect.sizeOf(List.of(List.of(1, 2), List.of(3)))).isEqualTo(3);
+        assertThat(RepositoryMetricsAspect.sizeOf(List.of(1, 2))).isEqualTo(2);
+        assertThat(RepositoryMetricsAspect.sizeOf(5L)).isEqualTo(-1);
+    }
+
+    private long calls(String type, String method, String shape) {
+        Timer timer = registry.find("member.repository.calls")
+                .tags("class", type, "method", method, "shape", shape, "outcome", "success")
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,104 @@
+package study.querydsl.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "member.diagnostics.sql-fingerprints=true",
+        "member.diagnostics.explain=true"
+})
+@Transactional
+class StatementFingerprintsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    StatementFingerprints fingerprints;
+
+    @BeforeEach
+    void setUp() {
+        Team team = new Team("해바라기반");
+        em.persist(team);
+        em.persist(new Member("짱구", 5, team));
+        em.persist(new Member("유리", 6, team));
+        em.flush();
+        fingerprints.reset();
+    }
+
+    @Test
+    void 조건_조합마다_fingerprint_가_하나씩() {
+        memberRepository.search(teamName("해바라기반"));
+        memberRepository.search(teamName("장미반"));
+        MemberSearchCondition usernameAndAge = new MemberSearchCondition();
+        usernameAndAge.setUsername("짱구");
+        usernameAndAge.setAgeGoe(5);
+        memberRepository.search(usernameAndAge);
+
+        List<StatementFingerprints.Snapshot> search = fingerprints.report().stream()
+                .filter(snapshot -> snapshot.getSources().contains("MemberRepositoryImpl.search"))
+                .collect(Collectors.toList());
+
+        assertThat(search).hasSize(2);
+        assertThat(search).extracting(StatementFingerprints.Snapshot::getCount).containsExactlyInAnyOrder(2L, 1L);
+    }
+
+    @Test
+    void 플랜은_마지막으로_실행된_값으로_explain_한다() {
+        memberRepository.search(teamName("해바라기반"));
+        StatementFingerprints.Snapshot snapshot = fingerprints.report().get(0);
+
+        String plan = fingerprints.explain(snapshot.getFingerprint());
+
+        assertThat(plan).containsIgnoringCase("member").doesNotStartWith("explain failed");
+        assertThat(fingerprints.report().get(0).getPlan()).isEqualTo(plan);
+    }
+
+    @Test
+    void report_에는_바인드_값을_싣지_않는다() {
+        memberRepository.search(teamName("해바라기반"));
+
+        StatementFingerprints.Snapshot snapshot = fingerprints.report().get(0);
+
+        assertThat(snapshot.getSample()).contains("?").doesNotContain("해바라기반");
+        assertThat(fingerprints.explain(snapshot.getFingerprint())).doesNotStartWith("explain failed");
+        assertThat(fingerprints.report().get(0).getPlan()).doesNotContain("해바라기반");
+    }
+
+    @Test
+    void repository_밖의_SQL_은_기록하지_않는다() {
+        em.createQuery("select m from Member m", Member.class).getResultList();
+
+        assertThat(fingerprints.report()).isEmpty();
+    }
+
+    @Test
+    void 리터럴과_IN_목록_길이를_지운다() {
+        assertThat(StatementFingerprints.fingerprint("SELECT *  FROM member\n WHERE id IN (?, ?, ?) AND name = 'a''b' LIMIT 10"))
+                .isEqualTo("select * from member where id in (?+) and name = ? limit ?");
+        assertThat(StatementFingerprints.fingerprint("select member0_.id from member member0_ where id in (?)"))
+                .isEqualTo("select member0_.id from member member0_ where id in (?+)");
+    }
+
+    private static MemberSearchCondition teamName(String teamName) {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName(teamName);
+        return cond;
+    }
+}
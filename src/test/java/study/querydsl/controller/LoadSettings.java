@@ -0,0 +1,128 @@
+package study.querydsl.controller;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 부하 테스트 설정. gradle 에서 -Dload.xxx 로 바꾼다.
+ * <pre>
+ * ./gradlew loadTest -Dload.concurrency=64 -Dload.requests=500 -Dload.members=20000 -Dload.mix=teamName:3,username:1
+ * </pre>
+ */
+class LoadSettings {
+
+    final int concurrency = intProperty("load.concurrency", 32);
+    final int requestsPerWorker = intProperty("load.requests", 200);
+    final int warmupPerWorker = intProperty("load.warmup", 20);
+    final int teams = intProperty("load.teams", 10);
+    final int members = intProperty("load.members", 5_000);
+    final int pageSize = intProperty("load.page-size", 20);
+    final List<String> endpoints = List.of(System.getProperty("load.endpoints", "v1,v2").split(","));
+    final Map<Scenario, Integer> mix = mix(System.getProperty("load.mix",
+            "teamName:3,username:2,ageRange:2,teamNameAndAge:2,unfiltered:1"));
+
+    /**
+     * 검색 조건 조합. v1 은 페이징이 없어 결과 행 수가 query-budget.max-rows 를 넘으면 실패하므로
+     * 시드 크기로 본 최대 결과 행 수({@link #maxRows})가 max-rows 를 넘는 조합과 unfiltered 는 v2 에서만 쓴다.
+     */
+    enum Scenario {
+        TEAM_NAME("teamName", true),
+        USERNAME("username", true),
+        AGE_RANGE("ageRange", true),
+        TEAM_NAME_AND_AGE("teamNameAndAge", true),
+        UNFILTERED("unfiltered", false);
+
+        final String key;
+        final boolean unpaged;
+
+        Scenario(String key, boolean unpaged) {
+            this.key = key;
+            this.unpaged = unpaged;
+        }
+
+        String query(int n, LoadSettings settings) {
+            int age = n % 95;
+            switch (this) {
+                case TEAM_NAME:
+                    return "teamName=team" + n % settings.teams;
+                case USERNAME:
+                    return "username=member" + n % settings.members;
+                case AGE_RANGE:
+                    return "ageGoe=" + age + "&ageLoe=" + (age + 4);
+                case TEAM_NAME_AND_AGE:
+                    return "teamName=team" + n % settings.teams + "&ageGoe=" + age + "&ageLoe=" + (age + 9);
+                default:
+                    return "";
+            }
+        }
+
+        /**
+         * 시드 데이터(age = i % 100, team = i % teams)에서 이 조합이 맞출 수 있는 최대 행 수
+         */
+        long maxRows(LoadSettings settings) {
+            long perTeam = ceil(settings.members, settings.teams);
+            switch (this) {
+                case TEAM_NAME:
+                    return perTeam;
+                case USERNAME:
+                    return 1;
+                case AGE_RANGE:
+                    return ceil(settings.members, 100) * 5;
+                case TEAM_NAME_AND_AGE:
+                    return Math.min(perTeam, ceil(settings.members, 100) * 10);
+                default:
+                    return settings.members;
+            }
+        }
+
+        private static long ceil(long dividend, long divisor) {
+            return (dividend + divisor - 1) / divisor;
+        }
+
+        static Scenario of(String key) {
+            for (Scenario scenario : values()) {
+                if (scenario.key.equals(key)) {
+                    return scenario;
+                }
+            }
+            throw new IllegalArgumentException("unknown load.mix scenario: " + key);
+        }
+    }
+
+    /**
+     * 가중치만큼 반복해서 넣은 목록. 요청 번호로 돌아가며 고른다.
+     */
+    List<Scenario> weighted(String endpoint, int maxRows) {
+        List<Scenario> weighted = new ArrayList<>();
+        mix.forEach((scenario, weight) -> {
+            if (!endpoint.equals("v1") || fits(scenario, maxRows)) {
+                for (int i = 0; i < weight; i++) {
+                    weighted.add(scenario);
+                }
+            }
+        });
+        return weighted;
+    }
+
+    /**
+     * v1 으로 보내도 max-rows 에 걸리지 않는 조합인지
+     */
+    boolean fits(Scenario scenario, int maxRows) {
+        return scenario.unpaged && scenario.maxRows(this) <= maxRows;
+    }
+
+    private static Map<Scenario, Integer> mix(String value) {
+        Map<Scenario, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            mix.put(Scenario.of(parts[0]), parts.length > 1 ? Integer.parseInt(parts[1]) : 1);
+        }
+        return mix;
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,102 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 버전은 커밋 후에 올라가므로 테스트 트랜잭션 없이 커밋된 데이터로 확인한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerConditionalTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void setUp() {
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("해바라기반");
+            em.persist(team);
+            em.persist(new Member("짱구", 5, team));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void 변경이_없으면_304() throws Exception {
+        String etag = search("/v1/members");
+
+        mvc.perform(get("/v1/members").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(request().asyncNotStarted());
+    }
+
+    @Test
+    void 커밋되면_새_ETag() throws Exception {
+        String etag = search("/v2/members");
+
+        tx.executeWithoutResult(status -> em.persist(new Member("철수", 5)));
+
+        MvcResult result = mvc.perform(get("/v2/members").header("If-None-Match", etag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    void 롤백되면_ETag_유지() throws Exception {
+        String etag = search("/v1/members");
+
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("철수", 5));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        mvc.perform(get("/v1/members").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    private String search(String url) throws Exception {
+        MvcResult result = mvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+    }
+}
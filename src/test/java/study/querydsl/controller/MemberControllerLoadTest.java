@@ -0,0 +1,12 @@
+package study.querydsl.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-default;DB_CLOSE_DELAY=-1",
+        "decorator.datasource.p6spy.enable-logging=false"
+})
+class MemberControllerLoadTest extends MemberControllerLoadTestSupport {
+}
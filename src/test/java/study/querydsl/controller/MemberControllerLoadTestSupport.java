@@ -0,0 +1,163 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.config.MemberQueryBudgetProperties;
+import study.querydsl.controller.LoadSettings.Scenario;
+import study.querydsl.support.MemberSeeder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * /v1/members, /v2/members 에 동시 요청을 보내 처리량과 지연 시간 분위수를 출력한다. 프로필별 설정 차이를 비교하기 위한 부하 테스트.
+ * 동시성, 요청 수, 데이터 크기, 조건 조합은 {@link LoadSettings} 참고.
+ */
+@Tag("load")
+abstract class MemberControllerLoadTestSupport {
+
+    final LoadSettings settings = new LoadSettings();
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    MemberQueryBudgetProperties budget;
+
+    @BeforeEach
+    void seed() {
+        MemberSeeder.seed(jdbc, settings.teams, settings.members);
+    }
+
+    @Test
+    void members_throughput() throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency);
+        try {
+            for (String endpoint : settings.endpoints) {
+                skipped(endpoint);
+                run(client, workers, endpoint, settings.warmupPerWorker);
+
+                long start = System.nanoTime();
+                List<Sample> samples = run(client, workers, endpoint, settings.requestsPerWorker);
+                long elapsed = System.nanoTime() - start;
+
+                report(endpoint, samples, elapsed);
+                assertThat(samples).allMatch(sample -> sample.status == 200);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private List<Sample> run(HttpClient client, ExecutorService workers, String endpoint, int requestsPerWorker) throws Exception {
+        List<Scenario> scenarios = settings.weighted(endpoint, budget.getMaxRows());
+        if (scenarios.isEmpty()) {
+            throw new IllegalStateException("no load.mix scenario fits /" + endpoint + "/members with max-rows " + budget.getMaxRows());
+        }
+        List<Future<List<Sample>>> futures = new ArrayList<>();
+        for (int w = 0; w < settings.concurrency; w++) {
+            int worker = w;
+            futures.add(workers.submit(() -> {
+                List<Sample> samples = new ArrayList<>(requestsPerWorker);
+                for (int i = 0; i < requestsPerWorker; i++) {
+                    int n = worker * requestsPerWorker + i;
+                    Scenario scenario = scenarios.get(n % scenarios.size());
+                    URI uri = URI.create("http://localhost:" + port + "/" + endpoint + "/members?"
+                            + scenario.query(n, settings) + page(endpoint, i));
+                    long start = System.nanoTime();
+                    HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri).GET().build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    samples.add(new Sample(scenario, response.statusCode(), System.nanoTime() - start));
+                }
+                return samples;
+            }));
+        }
+        List<Sample> samples = new ArrayList<>();
+        for (Future<List<Sample>> future : futures) {
+            samples.addAll(future.get());
+        }
+        return samples;
+    }
+
+    /**
+     * v1 은 페이징이 없어 시드 크기상 max-rows 를 넘을 수 있는 조합을 보내지 않는다. 뺀 조합을 출력해 둔다.
+     */
+    private void skipped(String endpoint) {
+        if (!endpoint.equals("v1")) {
+            return;
+        }
+        settings.mix.keySet().stream()
+                .filter(scenario -> !settings.fits(scenario, budget.getMaxRows()))
+                .forEach(scenario -> System.out.printf("[%s /%s/members] skip %s: up to %d rows > max-rows %d%n",
+                        getClass().getSimpleName(), endpoint, scenario.key, scenario.maxRows(settings), budget.getMaxRows()));
+    }
+
+    private String page(String endpoint, int i) {
+        return endpoint.equals("v1") ? "" : "&page=" + (i % 5) + "&size=" + settings.pageSize;
+    }
+
+    private void report(String endpoint, List<Sample> samples, long elapsedNanos) {
+        System.out.printf("[%s /%s/members] %d requests, %d workers, %d ms -> %.1f req/s, %s, errors %d%n",
+                getClass().getSimpleName(), endpoint, samples.size(), settings.concurrency, elapsedNanos / 1_000_000,
+                samples.size() * 1e9 / elapsedNanos, percentiles(samples), errors(samples));
+
+        Map<Scenario, List<Sample>> byScenario = new EnumMap<>(Scenario.class);
+        for (Sample sample : samples) {
+            byScenario.computeIfAbsent(sample.scenario, key -> new ArrayList<>()).add(sample);
+        }
+        byScenario.forEach((scenario, scenarioSamples) -> System.out.printf("    %-15s %6d requests, %s, errors %d%n",
+                scenario.key, scenarioSamples.size(), percentiles(scenarioSamples), errors(scenarioSamples)));
+    }
+
+    private static String percentiles(List<Sample> samples) {
+        long[] nanos = samples.stream().mapToLong(sample -> sample.nanos).toArray();
+        Arrays.sort(nanos);
+        return String.format("p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, max %.2f ms",
+                percentile(nanos, 0.50), percentile(nanos, 0.99), percentile(nanos, 0.999), nanos[nanos.length - 1] / 1e6);
+    }
+
+    /**
+     * nearest-rank
+     */
+    private static double percentile(long[] sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1e6;
+    }
+
+    private static long errors(List<Sample> samples) {
+        return samples.stream().filter(sample -> sample.status != 200).count();
+    }
+
+    private static class Sample {
+
+        final Scenario scenario;
+        final int status;
+        final long nanos;
+
+        Sample(Scenario scenario, int status, long nanos) {
+            this.scenario = scenario;
+            this.status = status;
+            this.nanos = nanos;
+        }
+    }
+}
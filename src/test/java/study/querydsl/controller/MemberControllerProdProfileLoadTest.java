@@ -0,0 +1,13 @@
+package study.querydsl.controller;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.RANDOM_PORT;
+
+@ActiveProfiles("prod")
+@SpringBootTest(webEnvironment = RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-prod;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=64"
+})
+class MemberControllerProdProfileLoadTest extends MemberControllerLoadTestSupport {
+}
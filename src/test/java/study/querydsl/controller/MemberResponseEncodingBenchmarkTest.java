@@ -0,0 +1,71 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SlimPage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 같은 페이지를 PageImpl JSON / SlimPage JSON / x-member-rows 로 직렬화했을 때의 크기와 CPU 시간.
+ * ./gradlew benchmark
+ */
+@Tag("benchmark")
+class MemberResponseEncodingBenchmarkTest {
+
+    static final int ITERATIONS = 2_000;
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    MemberRowsHttpMessageConverter converter = new MemberRowsHttpMessageConverter();
+
+    @Test
+    void encoding() throws IOException {
+        for (int size : new int[]{20, 100, 1_000}) {
+            List<MemberTeamDto> rows = MemberRowsHttpMessageConverterTest.members(size);
+            Page<MemberTeamDto> page = new PageImpl<>(rows, PageRequest.of(3, size), 100_000);
+
+            report(size, "PageImpl json", () -> objectMapper.writeValueAsBytes(page));
+            report(size, "SlimPage json", () -> objectMapper.writeValueAsBytes(SlimPage.of(page)));
+            report(size, "x-member-rows", () -> {
+                MockHttpOutputMessage out = new MockHttpOutputMessage();
+                converter.write(page, MemberRowsHttpMessageConverter.MEMBER_ROWS, out);
+                return out.getBodyAsBytes();
+            });
+        }
+    }
+
+    private void report(int size, String name, Encoder encoder) throws IOException {
+        for (int i = 0; i < ITERATIONS; i++) {
+            encoder.encode();
+        }
+        long start = System.nanoTime();
+        byte[] body = null;
+        for (int i = 0; i < ITERATIONS; i++) {
+            body = encoder.encode();
+        }
+        long nanosPerOp = (System.nanoTime() - start) / ITERATIONS;
+        System.out.printf("[%5d rows] %-14s %8d bytes, gzip %7d bytes, %8d ns/op%n",
+                size, name, body.length, gzip(body).length, nanosPerOp);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    interface Encoder {
+        byte[] encode() throws IOException;
+    }
+}
@@ -0,0 +1,122 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SlimPage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberRowsHttpMessageConverterTest {
+
+    MemberRowsHttpMessageConverter converter = new MemberRowsHttpMessageConverter();
+
+    @Test
+    void list_왕복() throws IOException {
+        List<MemberTeamDto> rows = List.of(
+                new MemberTeamDto(1L, "짱구", 5, 10L, "해바라기반"),
+                new MemberTeamDto(2L, null, -1, null, null),
+                new MemberTeamDto(300L, "둘리", 8, 20L, "장미반"));
+
+        Object read = roundTrip(rows);
+
+        assertThat(read).isEqualTo(rows);
+    }
+
+    @Test
+    void page_왕복() throws IOException {
+        List<MemberTeamDto> rows = members(20);
+        PageImpl<MemberTeamDto> page = new PageImpl<>(rows, PageRequest.of(2, 20), 1_000);
+
+        Object read = roundTrip(page);
+
+        assertThat(read).isEqualTo(new SlimPage<>(rows, 2, 20, 1_000));
+    }
+
+    @Test
+    void MemberTeamDto_목록으로만_읽는다() {
+        MediaType rows = MemberRowsHttpMessageConverter.MEMBER_ROWS;
+
+        assertThat(converter.canRead(new ParameterizedTypeReference<List<MemberTeamDto>>() {}.getType(), null, rows)).isTrue();
+        assertThat(converter.canRead(new ParameterizedTypeReference<SlimPage<MemberTeamDto>>() {}.getType(), null, rows)).isTrue();
+        assertThat(converter.canRead(new ParameterizedTypeReference<List<String>>() {}.getType(), null, rows)).isFalse();
+        assertThat(converter.canRead(new ParameterizedTypeReference<Page<MemberTeamDto>>() {}.getType(), null, rows)).isFalse();
+        assertThat(converter.canRead(new ParameterizedTypeReference<List<MemberTeamDto>>() {}.getType(), null, MediaType.APPLICATION_JSON)).isFalse();
+    }
+
+    @Test
+    void 개수가_너무_크면_거절한다() {
+        assertThatThrownBy(() -> read(0, 0, MemberRowsHttpMessageConverter.MAX_ROWS + 1))
+                .isInstanceOf(HttpMessageNotReadableException.class)
+                .hasMessageContaining("row count");
+        assertThatThrownBy(() -> read(0, -1L))
+                .isInstanceOf(HttpMessageNotReadableException.class)
+                .hasMessageContaining("team count");
+    }
+
+    @Test
+    void 문자열이_너무_길면_거절한다() {
+        assertThatThrownBy(() -> read(0, 1, 10, MemberRowsHttpMessageConverter.MAX_STRING_BYTES + 2))
+                .isInstanceOf(HttpMessageNotReadableException.class)
+                .hasMessageContaining("string length");
+    }
+
+    @Test
+    void 사전_밖의_팀을_가리키면_거절한다() {
+        assertThatThrownBy(() -> read(0, 1, 10, 0, 1, 1, 0, 2, 2))
+                .isInstanceOf(HttpMessageNotReadableException.class)
+                .hasMessageContaining("team index");
+    }
+
+    @Test
+    void 중간에_끊긴_body_는_거절한다() {
+        assertThatThrownBy(() -> read(0, 0, 3, 1))
+                .isInstanceOf(HttpMessageNotReadableException.class)
+                .hasMessageContaining("truncated");
+    }
+
+    /**
+     * 헤더 뒤에 flags 와 varint 들을 이어 붙인 body 를 읽는다.
+     */
+    private Object read(long... varints) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write('M');
+        body.write('R');
+        body.write(1);
+        for (long value : varints) {
+            while ((value & ~0x7FL) != 0) {
+                body.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            body.write((int) value);
+        }
+        return converter.read(Object.class, null, new MockHttpInputMessage(body.toByteArray()));
+    }
+
+    private Object roundTrip(Object value) throws IOException {
+        MockHttpOutputMessage out = new MockHttpOutputMessage();
+        converter.write(value, MemberRowsHttpMessageConverter.MEMBER_ROWS, out);
+        return converter.read(Object.class, null, new MockHttpInputMessage(out.getBodyAsBytes()));
+    }
+
+    static List<MemberTeamDto> members(int count) {
+        List<MemberTeamDto> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new MemberTeamDto((long) i + 100, "member" + i, i % 100, (long) i % 10, "team" + i % 10));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import study.querydsl.config.MemberExecutionProperties;
+import study.querydsl.config.MemberExecutionProperties.Mode;
+import study.querydsl.config.MemberQueryBudgetProperties;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 커넥션 풀 크기는 쓰지 않도록 maxConcurrentQueries 를 직접 지정한다.
+ */
+class SearchExecutorTest {
+
+    CountDownLatch release = new CountDownLatch(1);
+    SearchExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void SERVLET_모드는_호출한_스레드에서_실행한다() {
+        executor = executor(properties(Mode.SERVLET));
+
+        CompletableFuture<String> thread = executor.submit(() -> Thread.currentThread().getName());
+
+        assertThat(thread).isCompletedWithValue(Thread.currentThread().getName());
+    }
+
+    @Test
+    void EXECUTOR_모드는_검색용_스레드에서_실행한다() {
+        executor = executor(properties(Mode.EXECUTOR));
+
+        String thread = executor.submit(() -> Thread.currentThread().getName()).join();
+
+        assertThat(thread).startsWith("member-search-");
+    }
+
+    @Test
+    void 실행_허가를_기다리다_시간이_지나면_503() throws InterruptedException {
+        MemberExecutionProperties properties = properties(Mode.EXECUTOR);
+        properties.setAcquireTimeout(Duration.ofMillis(50));
+        executor = executor(properties);
+
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(() -> {
+            started.countDown();
+            return awaitRelease();
+        });
+        assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> executor.submit(() -> "second").join())
+                .hasCauseInstanceOf(SearchOverloadedException.class);
+    }
+
+    @Test
+    void 대기열이_가득_차면_503() throws InterruptedException {
+        MemberExecutionProperties properties = properties(Mode.EXECUTOR);
+        properties.setPlatformThreads(1);
+        properties.setQueueCapacity(1);
+        executor = executor(properties);
+
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(() -> {
+            started.countDown();
+            return awaitRelease();
+        });
+        assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+        executor.submit(this::awaitRelease);
+
+        assertThatThrownBy(() -> executor.submit(() -> "third"))
+                .isInstanceOf(SearchOverloadedException.class);
+        assertThat(SearchOverloadedException.class.getAnnotation(ResponseStatus.class).value())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private String awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "released";
+    }
+
+    private static SearchExecutor executor(MemberExecutionProperties properties) {
+        SearchExecutor executor = new SearchExecutor(properties, new MemberQueryBudgetProperties(), null);
+        executor.init();
+        return executor;
+    }
+
+    private static MemberExecutionProperties properties(Mode mode) {
+        MemberExecutionProperties properties = new MemberExecutionProperties();
+        properties.setMode(mode);
+        properties.setVirtualThreads(false);
+        properties.setPlatformThreads(2);
+        properties.setMaxConcurrentQueries(1);
+        return properties;
+    }
+}
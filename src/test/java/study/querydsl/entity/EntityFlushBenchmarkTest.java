@@ -0,0 +1,84 @@
+package study.querydsl.entity;
+
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.support.MemberSeeder;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 10만 건을 영속성 컨텍스트에 올려둔 상태에서 flush 시간을 잰다.
+ * 변경이 없을 때와 1% 를 바꿨을 때를 본다. snapshot 비교와 비교하려면 -PhibernateDirtyTracking=false 로 한 번 더 실행한다.
+ * ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bench-flush;DB_CLOSE_DELAY=-1",
+        "decorator.datasource.p6spy.enable-logging=false",
+        "member.outbox.enabled=false"
+})
+class EntityFlushBenchmarkTest {
+
+    static final int MEMBER_COUNT = 100_000;
+    static final int TEAM_COUNT = 100;
+    static final int DIRTY_COUNT = 1_000;
+    static final int ROUNDS = 5;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @BeforeEach
+    void seed() {
+        MemberSeeder.seed(jdbc, TEAM_COUNT, MEMBER_COUNT);
+    }
+
+    @Test
+    void flush_100k_managed() {
+        String tracking = SelfDirtinessTracker.class.isAssignableFrom(Member.class) ? "inline dirty tracking" : "snapshot";
+
+        long clean = Long.MAX_VALUE;
+        long dirty = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            clean = Math.min(clean, flush(0));
+            dirty = Math.min(dirty, flush(DIRTY_COUNT));
+        }
+        System.out.printf("[flush %s] %d managed: clean %d ms, %d dirty %d ms%n",
+                tracking, MEMBER_COUNT, clean / 1_000_000, DIRTY_COUNT, dirty / 1_000_000);
+    }
+
+    /**
+     * 변경은 롤백해서 다음 라운드가 같은 데이터로 시작하게 한다.
+     */
+    private long flush(int dirtyCount) {
+        return tx.execute(status -> {
+            List<Member> members = em.createQuery("select m from Member m", Member.class).getResultList();
+            assertThat(members).hasSize(MEMBER_COUNT);
+            Team team = em.getReference(Team.class, 1L);
+            for (int i = 0; i < dirtyCount; i++) {
+                members.get(i * (MEMBER_COUNT / dirtyCount)).changeTeam(team);
+            }
+
+            long start = System.nanoTime();
+            em.flush();
+            long nanos = System.nanoTime() - start;
+
+            status.setRollbackOnly();
+            return nanos;
+        });
+    }
+}
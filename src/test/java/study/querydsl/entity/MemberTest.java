@@ -8,6 +8,8 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.persistence.EntityManager;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest
 @Transactional
 class MemberTest {
@@ -47,4 +49,18 @@ class MemberTest {
             System.out.println("-> member.getTeam() = " + member.getTeam());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void changeTeam_은_양쪽_members_를_맞춘다() {
+        Team teamA = new Team("해바라기반");
+        Team teamB = new Team("장미반");
+        Member member = new Member("짱구", 5, teamA);
+
+        assertThat(teamA.getMembers()).containsExactly(member);
+
+        member.changeTeam(teamB);
+
+        assertThat(teamA.getMembers()).isEmpty();
+        assertThat(teamB.getMembers()).containsExactly(member);
+    }
+}
@@ -0,0 +1,84 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.stream.Collectors.toMap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchLoaderTest {
+
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    List<Set<Long>> batches = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void 시간_창_안의_조회는_한_번에_처리() {
+        BatchLoader<Long, String> loader = loader(Duration.ofMillis(50), 100);
+
+        CompletableFuture<Optional<String>> first = loader.load(1L);
+        CompletableFuture<Optional<String>> second = loader.load(2L);
+        CompletableFuture<Optional<String>> duplicate = loader.load(1L);
+
+        assertThat(first.join()).contains("member1");
+        assertThat(second.join()).contains("member2");
+        assertThat(duplicate).isSameAs(first);
+        assertThat(batches).containsExactly(Set.of(1L, 2L));
+    }
+
+    @Test
+    void 최대_배치_크기에_도달하면_바로_조회() {
+        BatchLoader<Long, String> loader = loader(Duration.ofHours(1), 2);
+
+        Map<Long, String> result = loader.loadMany(List.of(1L, 2L)).join();
+
+        assertThat(result).containsEntry(1L, "member1").containsEntry(2L, "member2");
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    void 없는_id_는_empty() {
+        BatchLoader<Long, String> loader = loader(Duration.ofMillis(1), 100);
+
+        assertThat(loader.load(-1L).join()).isEmpty();
+    }
+
+    @Test
+    void 일괄_조회가_Error_로_끝나도_future_를_완료하고_다음_조회는_새로_한다() {
+        AtomicInteger calls = new AtomicInteger();
+        BatchLoader<Long, String> loader = new BatchLoader<>(ids -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new StackOverflowError();
+            }
+            return Map.of(1L, "member1");
+        }, scheduler, Duration.ofMillis(1), 100);
+
+        assertThatThrownBy(() -> loader.load(1L).join()).hasCauseInstanceOf(StackOverflowError.class);
+        assertThat(loader.load(1L).join()).contains("member1");
+    }
+
+    private BatchLoader<Long, String> loader(Duration window, int maxBatchSize) {
+        return new BatchLoader<>(ids -> {
+            batches.add(Set.copyOf(ids));
+            return ids.stream()
+                    .filter(id -> id > 0)
+                    .collect(toMap(id -> id, id -> "member" + id));
+        }, scheduler, window, maxBatchSize);
+    }
+}
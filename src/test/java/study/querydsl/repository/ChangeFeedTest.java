@@ -0,0 +1,67 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.config.MemberChangeFeedProperties;
+import study.querydsl.dto.ChangeEvent;
+import study.querydsl.dto.ChangeFeedPage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.dto.ChangeEvent.Operation.INSERT;
+
+class ChangeFeedTest {
+
+    ChangeFeed feed = new ChangeFeed(properties(4, 3));
+
+    @Test
+    void offset_순서대로_이어_읽기() {
+        publish(5L, 6L, 7L, 8L);
+
+        ChangeFeedPage first = feed.read(0, 10);
+        assertThat(first.getEvents()).extracting(ChangeEvent::getEntityId).containsExactly(5L, 6L, 7L);
+        assertThat(first.getEvents()).extracting(ChangeEvent::getOffset).containsExactly(0L, 1L, 2L);
+
+        ChangeFeedPage second = feed.read(first.getNextOffset(), 10);
+        assertThat(second.getEvents()).extracting(ChangeEvent::getEntityId).containsExactly(8L);
+        assertThat(feed.read(second.getNextOffset(), 10).getEvents()).isEmpty();
+    }
+
+    @Test
+    void 밀려난_offset_은_truncated() {
+        publish(1L, 2L, 3L, 4L, 5L, 6L);
+
+        ChangeFeedPage page = feed.read(1, 10);
+
+        assertThat(page.isTruncated()).isTrue();
+        assertThat(page.getOldestOffset()).isEqualTo(2);
+        assertThat(feed.read(page.getOldestOffset(), 10).getEvents())
+                .extracting(ChangeEvent::getEntityId).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void publish_하면_listener_호출() {
+        List<Long> notified = new ArrayList<>();
+        feed.addListener(() -> notified.add(feed.nextOffset()));
+
+        publish(1L, 2L);
+
+        assertThat(notified).containsExactly(2L);
+    }
+
+    private void publish(Long... ids) {
+        List<ChangeEvent> events = new ArrayList<>();
+        for (Long id : ids) {
+            events.add(new ChangeEvent(-1, "Member", id, INSERT, 1, 0));
+        }
+        feed.publish(events);
+    }
+
+    private static MemberChangeFeedProperties properties(int capacity, int batchSize) {
+        MemberChangeFeedProperties properties = new MemberChangeFeedProperties();
+        properties.setCapacity(capacity);
+        properties.setBatchSize(batchSize);
+        return properties;
+    }
+}
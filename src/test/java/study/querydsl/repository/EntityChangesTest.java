@@ -0,0 +1,112 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.ChangeEvent;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static study.querydsl.dto.ChangeEvent.Operation.BULK_UPDATE;
+import static study.querydsl.dto.ChangeEvent.Operation.INSERT;
+import static study.querydsl.dto.ChangeEvent.Operation.UPDATE;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 변경은 커밋 후에 반영되므로 테스트 트랜잭션 없이 확인한다.
+ */
+@SpringBootTest
+class EntityChangesTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @Autowired
+    JPAQueryFactory query;
+
+    @Autowired
+    ChangeFeed feed;
+
+    @Autowired
+    DataVersions versions;
+
+    long start;
+
+    @BeforeEach
+    void setUp() {
+        start = feed.nextOffset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void 커밋된_변경이_순서대로_피드에_쌓인다() {
+        long memberVersion = versions.version(Member.class);
+
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("해바라기반");
+            em.persist(team);
+            em.persist(new Member("짱구", 5, team));
+        });
+        tx.executeWithoutResult(status -> query.update(member).set(member.age, member.age.add(1)).execute());
+
+        List<ChangeEvent> events = feed.read(start, 100).getEvents();
+        assertThat(events)
+                .extracting(ChangeEvent::getEntity, ChangeEvent::getOperation)
+                .containsExactly(
+                        tuple("Team", INSERT),
+                        tuple("Member", INSERT),
+                        tuple("Member", BULK_UPDATE));
+        assertThat(events.get(2).getRows()).isEqualTo(1);
+        assertThat(versions.version(Member.class)).isEqualTo(memberVersion + 2);
+    }
+
+    @Test
+    void 더티체킹_update() {
+        Long id = tx.execute(status -> {
+            Member m = new Member("짱구", 5);
+            em.persist(m);
+            return m.getId();
+        });
+        tx.executeWithoutResult(status -> em.find(Member.class, id).changeTeam(newTeam()));
+
+        assertThat(feed.read(start, 100).getEvents())
+                .extracting(ChangeEvent::getEntity, ChangeEvent::getEntityId, ChangeEvent::getOperation)
+                .contains(tuple("Member", id, UPDATE));
+    }
+
+    @Test
+    void 롤백되면_버린다() {
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("짱구", 5));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(feed.read(start, 100).getEvents()).isEmpty();
+    }
+
+    private Team newTeam() {
+        Team team = new Team("장미반");
+        em.persist(team);
+        return team;
+    }
+}
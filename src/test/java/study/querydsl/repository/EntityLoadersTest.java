@@ -0,0 +1,79 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.support.SqlBudget;
+import study.querydsl.support.SqlBudgetTest;
+import study.querydsl.support.SqlStatementRecorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * loader 는 트랜잭션 밖에서 커밋된 데이터를 읽으므로 테스트 트랜잭션 없이 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:entity-loaders;DB_CLOSE_DELAY=-1",
+        "member.loader.window=100ms"
+})
+@SqlBudgetTest
+class EntityLoadersTest {
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    SqlStatementRecorder recorder;
+
+    @Autowired
+    MemberJpaRepository repository;
+
+    @BeforeEach
+    void seed() {
+        Integer count = jdbc.queryForObject("select count(*) from member", Integer.class);
+        if (count != null && count > 0) {
+            return;
+        }
+        jdbc.update("insert into team (id, name) values (?, ?)", 1L, "해바라기반");
+        for (long id = 11; id <= 14; id++) {
+            jdbc.update("insert into member (id, username, age, team_id) values (?, ?, ?, ?)", id, "member" + id, 5, 1L);
+        }
+    }
+
+    @Test
+    @SqlBudget(statements = 1)
+    void 트랜잭션_밖의_findById_는_모아서_한_번에_조회한다() throws Exception {
+        recorder.restart();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Optional<Member>>> found = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                long id = 11 + i % 5;
+                found.add(callers.submit(() -> repository.findById(id)));
+            }
+
+            for (int i = 0; i < 8; i++) {
+                long id = 11 + i % 5;
+                Optional<Member> member = found.get(i).get();
+                if (id == 15) {
+                    assertThat(member).isEmpty();
+                } else {
+                    assertThat(member.map(Member::getUsername)).contains("member" + id);
+                    assertThat(member.get().getTeam().getName()).isEqualTo("해바라기반");
+                }
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberAvgAgeDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.support.MemberSeeder;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.querydsl.jpa.JPAExpressions.select;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 서브쿼리 버전과 MemberAggregateQueries 의 재작성 버전을 10만 건에서 비교한다.
+ * ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bench-subquery;DB_CLOSE_DELAY=-1",
+        "decorator.datasource.p6spy.enable-logging=false"
+})
+class MemberAggregateQueriesBenchmarkTest {
+
+    static final int MEMBER_COUNT = 100_000;
+    static final int TEAM_COUNT = 100;
+    static final int ROUNDS = 5;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    JPAQueryFactory query;
+
+    @Autowired
+    MemberAggregateQueries queries;
+
+    @BeforeEach
+    void seed() {
+        MemberSeeder.seed(jdbc, TEAM_COUNT, MEMBER_COUNT);
+    }
+
+    @Test
+    void max_age() {
+        QMember sub = new QMember("sub");
+        compare("age = (select max)",
+                () -> query.selectFrom(member)
+                        .where(member.age.eq(select(sub.age.max()).from(sub)))
+                        .fetch().stream().map(Member::getId).collect(toList()),
+                () -> queries.findOldest().stream().map(Member::getId).collect(toList()));
+    }
+
+    @Test
+    void max_age_per_team() {
+        QMember sub = new QMember("sub");
+        compare("age = (select max where team = outer.team)",
+                () -> query.selectFrom(member)
+                        .where(member.age.eq(select(sub.age.max()).from(sub).where(sub.team.eq(member.team))))
+                        .fetch().stream().map(Member::getId).collect(toList()),
+                () -> queries.findOldestPerTeam().stream().map(Member::getId).collect(toList()));
+    }
+
+    @Test
+    void age_in() {
+        QMember sub = new QMember("sub");
+        compare("age in (select)",
+                () -> query.selectFrom(member)
+                        .where(member.age.in(select(sub.age).from(sub).where(sub.age.lt(7))))
+                        .fetch().stream().map(Member::getId).collect(toList()),
+                () -> queries.findByAgeIn(s -> s.age.lt(7)).stream().map(Member::getId).collect(toList()));
+    }
+
+    @Test
+    void select_avg() {
+        QMember sub = new QMember("sub");
+        compare("select (select avg)",
+                () -> query.select(member.username, select(sub.age.avg()).from(sub))
+                        .from(member)
+                        .fetch().stream().map(row -> new MemberAvgAgeDto(row.get(member.username), row.get(1, Double.class)))
+                        .collect(toList()),
+                () -> queries.findUsernamesWithAvgAge());
+    }
+
+    /**
+     * 두 버전이 같은 행을 돌려주는지 (순서 무관) 확인한 뒤 시간을 잰다.
+     */
+    private <T> void compare(String name, Supplier<List<T>> subQuery, Supplier<List<T>> rewritten) {
+        assertThat(rewritten.get()).containsExactlyInAnyOrderElementsOf(subQuery.get());
+
+        long subQueryNanos = best(subQuery);
+        long rewrittenNanos = best(rewritten);
+        System.out.printf("[%s] subquery %d ms, rewritten %d ms (x%.1f)%n", name,
+                subQueryNanos / 1_000_000, rewrittenNanos / 1_000_000, (double) subQueryNanos / rewrittenNanos);
+    }
+
+    private static long best(Supplier<?> run) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            run.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberAvgAgeDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberAggregateQueriesTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberAggregateQueries queries;
+
+    @BeforeEach
+    void setUp() {
+        Team teamA = new Team("해바라기반");
+        Team teamB = new Team("장미반");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("짱구", 5, teamA));
+        em.persist(new Member("유리", 6, teamA));
+        em.persist(new Member("치타", 7, teamB));
+        em.persist(new Member("둘리", 8, teamB));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void findOldest() {
+        List<Member> result = queries.findOldest();
+
+        assertThat(result).extracting(Member::getUsername).containsExactly("둘리");
+    }
+
+    @Test
+    void findOldestPerTeam() {
+        List<Member> result = queries.findOldestPerTeam();
+
+        assertThat(result).extracting(Member::getUsername).containsExactlyInAnyOrder("유리", "둘리");
+    }
+
+    @Test
+    void findByAgeIn() {
+        List<Member> result = queries.findByAgeIn(sub -> sub.age.lt(7));
+
+        assertThat(result).extracting(Member::getUsername).containsExactly("짱구", "유리");
+    }
+
+    @Test
+    void findUsernamesWithAvgAge() {
+        List<MemberAvgAgeDto> result = queries.findUsernamesWithAvgAge();
+
+        assertThat(result).extracting(MemberAvgAgeDto::getUsername).containsExactly("짱구", "유리", "치타", "둘리");
+        assertThat(result).extracting(MemberAvgAgeDto::getAvgAge).containsOnly(6.5);
+    }
+}
@@ -0,0 +1,206 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberInLists.Strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 나눠서 조회하는 쿼리는 다른 스레드/트랜잭션에서 실행되므로 테스트 트랜잭션 없이 커밋된 데이터로 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:in-list;DB_CLOSE_DELAY=-1",
+        "member.in-list.chunked-max-size=1000"
+})
+class MemberInListsTest {
+
+    static final int MEMBER_COUNT = 2_000;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberInLists inLists;
+
+    @Autowired
+    MemberRepository repository;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @BeforeEach
+    void seed() {
+        Integer count = jdbc.queryForObject("select count(*) from member", Integer.class);
+        if (count != null && count >= MEMBER_COUNT) {
+            return;
+        }
+        jdbc.batchUpdate("insert into team (id, name) values (?, ?)",
+                List.of(new Object[]{1L, "teamA"}, new Object[]{2L, "teamB"}));
+
+        List<Object[]> members = new ArrayList<>();
+        for (long i = 1; i <= MEMBER_COUNT; i++) {
+            members.add(new Object[]{100 + i, "member" + i, (int) (i % 50), i % 2 + 1});
+        }
+        jdbc.batchUpdate("insert into member (id, username, age, team_id) values (?, ?, ?, ?)", members);
+    }
+
+    @Test
+    void 목록을_2의_거듭제곱_크기로_채운다() {
+        assertThat(MemberInLists.padded(List.of(1L))).containsExactly(1L);
+        assertThat(MemberInLists.padded(List.of(1L, 2L, 2L, 3L))).containsExactly(1L, 2L, 3L, 3L);
+        assertThat(MemberInLists.padded(List.of(1L, 2L, 3L, 4L, 5L))).hasSize(8).endsWith(5L, 5L, 5L, 5L);
+        assertThat(MemberInLists.chunks(ids(1, 600))).extracting(List::size).containsExactly(256, 256, 88);
+    }
+
+    @Test
+    void 목록_크기로_방식을_고른다() {
+        assertThat(inLists.choose(cond(null), true)).isEqualTo(Strategy.NONE);
+        assertThat(inLists.choose(cond(ids(1, 256)), true)).isEqualTo(Strategy.PADDED);
+        assertThat(inLists.choose(cond(ids(1, 600)), true)).isEqualTo(Strategy.CHUNKED);
+        assertThat(inLists.choose(cond(ids(1, 600)), false)).isEqualTo(Strategy.TEMP_TABLE);
+        assertThat(inLists.choose(cond(ids(1, 1500)), true)).isEqualTo(Strategy.TEMP_TABLE);
+    }
+
+    @Test
+    void 작은_목록은_in_으로_조회한다() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setUsernames(List.of("member1", "member2", "member3", "member3"));
+        cond.setTeamName("teamA");
+
+        assertThat(repository.search(cond)).extracting(MemberTeamDto::getUsername)
+                .containsExactlyInAnyOrder("member2");
+    }
+
+    @Test
+    void 큰_목록은_나눠서_조회한_결과를_합친다() {
+        MemberSearchCondition cond = cond(ids(101, 700));
+        cond.setAgeLoe(9);
+
+        List<MemberTeamDto> rows = repository.search(cond);
+
+        assertThat(rows).allMatch(row -> row.getAge() <= 9 && row.getMemberId() <= 700);
+        assertThat(rows).extracting(MemberTeamDto::getMemberId).doesNotHaveDuplicates().hasSize(120);
+    }
+
+    @Test
+    void 트랜잭션_밖에서는_나눈_조회를_다른_스레드에서_실행한다() {
+        List<String> threads = inLists.chunked(cond(ids(1, 600)), chunk -> List.of(Thread.currentThread().getName()));
+
+        assertThat(threads).hasSize(3).allMatch(name -> name.startsWith("member-in-list-"));
+    }
+
+    @Test
+    void 트랜잭션_안에서는_현재_커넥션으로_차례로_조회한다() {
+        String caller = Thread.currentThread().getName();
+        List<String> threads = tx.execute(status ->
+                inLists.chunked(cond(ids(1, 600)), chunk -> List.of(Thread.currentThread().getName())));
+
+        assertThat(threads).hasSize(3).containsOnly(caller);
+    }
+
+    @Test
+    void readOnly_트랜잭션_안에서는_임시_목록을_쓰지_않는다() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        Long total = readOnly.execute(status -> repository.searchPageComplex(cond(ids(101, 700)),
+                PageRequest.of(0, 10)).getTotalElements());
+
+        assertThat(total).isEqualTo(600);
+        assertThat(jdbc.queryForObject("select count(*) from in_list_value", Long.class)).isZero();
+    }
+
+    @Test
+    void 페이징은_임시_목록으로_조회하고_지운다() {
+        Page<MemberTeamDto> page = repository.searchPageComplex(cond(ids(101, 700)),
+                PageRequest.of(1, 10, Sort.by("memberId")));
+
+        assertThat(page.getTotalElements()).isEqualTo(600);
+        assertThat(page.getContent()).extracting(MemberTeamDto::getMemberId)
+                .containsExactlyElementsOf(ids(111, 120));
+        assertThat(jdbc.queryForObject("select count(*) from in_list_value", Long.class)).isZero();
+    }
+
+    @Test
+    void 쓰기_트랜잭션_안에서는_그_트랜잭션에_쓰고_지운다() {
+        Long total = tx.execute(status -> {
+            long count = repository.searchPageComplex(cond(ids(101, 2500)), PageRequest.of(0, 10)).getTotalElements();
+            assertThat(jdbc.queryForObject("select count(*) from in_list_value", Long.class)).isZero();
+            return count;
+        });
+
+        assertThat(total).isEqualTo(2_000);
+    }
+
+    @Test
+    void readOnly_트랜잭션_안에서_너무_큰_목록은_거절한다() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        assertThatThrownBy(() -> readOnly.execute(status ->
+                repository.searchPageComplex(cond(ids(101, 1600)), PageRequest.of(0, 10))))
+                .isInstanceOf(QueryBudgetExceededException.class);
+    }
+
+    @Test
+    void 여러_조건_중_큰_목록은_따로_나눠서_조회한다() {
+        MemberSearchCondition large = cond(ids(101, 700));
+        large.setAgeLoe(9);
+        MemberSearchCondition small = new MemberSearchCondition();
+        small.setUsernames(List.of("member5"));
+        double chunked = registry.counter("member.in_list.strategy", "strategy", "chunked").count();
+
+        List<List<MemberTeamDto>> results = repository.searchAll(List.of(large, small));
+
+        assertThat(results.get(0)).allMatch(row -> row.getAge() <= 9).hasSize(120);
+        assertThat(results.get(1)).extracting(MemberTeamDto::getUsername).containsExactly("member5");
+        assertThat(registry.counter("member.in_list.strategy", "strategy", "chunked").count()).isEqualTo(chunked + 1);
+    }
+
+    @Test
+    void 여러_조건을_합쳐_조회해도_목록으로_나눈다() {
+        MemberSearchCondition first = new MemberSearchCondition();
+        first.setMemberIds(ids(101, 105));
+        MemberSearchCondition second = new MemberSearchCondition();
+        second.setUsernames(List.of("member5", "member6"));
+
+        List<List<MemberTeamDto>> results = repository.searchAll(List.of(first, second));
+
+        assertThat(results.get(0)).extracting(MemberTeamDto::getMemberId).containsExactlyElementsOf(ids(101, 105));
+        assertThat(results.get(1)).extracting(MemberTeamDto::getUsername).containsExactly("member5", "member6");
+    }
+
+    private static MemberSearchCondition cond(List<Long> memberIds) {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setMemberIds(memberIds);
+        return cond;
+    }
+
+    private static List<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().collect(Collectors.toList());
+    }
+}
@@ -8,6 +8,9 @@ import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.support.SqlBudget;
+import study.querydsl.support.SqlBudgetTest;
+import study.querydsl.support.SqlStatementRecorder;
 
 import javax.persistence.EntityManager;
 
@@ -16,6 +19,7 @@ import java.util.List;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
+@SqlBudgetTest
 @Transactional
 class MemberJpaRepositoryTest {
 
@@ -23,6 +27,9 @@ class MemberJpaRepositoryTest {
     @Autowired
     EntityManager em;
 
+    @Autowired
+    SqlStatementRecorder recorder;
+
     @Autowired
     MemberJpaRepository repository;
 
@@ -60,6 +67,7 @@ class MemberJpaRepositoryTest {
     }
 
     @Test
+    @SqlBudget(statements = 1, rows = 2)
     void searchTest_booleanBuilder() {
         initData();
 
@@ -75,6 +83,7 @@ class MemberJpaRepositoryTest {
     }
 
     @Test
+    @SqlBudget(statements = 1, rows = 2)
     void searchTest_다중_where() {
         initData();
 
@@ -110,6 +119,7 @@ class MemberJpaRepositoryTest {
 
         em.flush();
         em.clear();
+        recorder.restart();
 
         System.out.println("=====================");
     }
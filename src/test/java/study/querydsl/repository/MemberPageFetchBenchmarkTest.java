@@ -0,0 +1,104 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.config.MemberRepositoryProperties;
+import study.querydsl.config.MemberRepositoryProperties.PageFetch;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.support.MemberSeeder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 10만 건에서 얕은/깊은 페이지를 SINGLE 과 ID_FIRST 로 조회해 비교한다.
+ * ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bench-page-fetch;DB_CLOSE_DELAY=-1",
+        "decorator.datasource.p6spy.enable-logging=false",
+        "member.diagnostics.sql-fingerprints=false"
+})
+class MemberPageFetchBenchmarkTest {
+
+    static final int MEMBER_COUNT = 100_000;
+    static final int TEAM_COUNT = 100;
+    static final int ROUNDS = 5;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    MemberRepository repository;
+
+    @Autowired
+    MemberRepositoryProperties properties;
+
+    @BeforeEach
+    void seed() {
+        MemberSeeder.seed(jdbc, TEAM_COUNT, MEMBER_COUNT);
+    }
+
+    @AfterEach
+    void restore() {
+        properties.setPageFetch(PageFetch.SINGLE);
+    }
+
+    @Test
+    void shallow_page() {
+        compare("page 0, size 100, age desc", PageRequest.of(0, 100, Sort.by(Sort.Order.desc("age"))));
+    }
+
+    @Test
+    void deep_page() {
+        compare("page 900, size 100, age desc", PageRequest.of(900, 100, Sort.by(Sort.Order.desc("age"))));
+    }
+
+    @Test
+    void deep_page_filtered() {
+        compare("page 400, size 50, age 20~60", PageRequest.of(400, 50, Sort.by(Sort.Order.asc("age"))), 20, 60);
+    }
+
+    private void compare(String name, Pageable pageable) {
+        compare(name, pageable, null, null);
+    }
+
+    private void compare(String name, Pageable pageable, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setAgeGoe(ageGoe);
+        cond.setAgeLoe(ageLoe);
+
+        properties.setPageFetch(PageFetch.SINGLE);
+        List<MemberTeamDto> single = repository.searchPageContent(cond, pageable);
+        long singleNanos = best(cond, pageable);
+
+        properties.setPageFetch(PageFetch.ID_FIRST);
+        List<MemberTeamDto> idFirst = repository.searchPageContent(cond, pageable);
+        long idFirstNanos = best(cond, pageable);
+
+        assertThat(idFirst).isEqualTo(single);
+        System.out.printf("[%s] single %d ms, id-first %d ms (x%.1f)%n", name,
+                singleNanos / 1_000_000, idFirstNanos / 1_000_000, (double) singleNanos / idFirstNanos);
+    }
+
+    private long best(MemberSearchCondition cond, Pageable pageable) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            repository.searchPageContent(cond, pageable);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
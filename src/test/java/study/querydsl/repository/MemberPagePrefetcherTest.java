@@ -0,0 +1,173 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.config.MemberPrefetchProperties;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberPagePrefetcherTest {
+
+    static final long TOTAL = 35;
+
+    FakeRepository repository = new FakeRepository();
+    DataVersions versions = new DataVersions();
+    MemberSearchCondition cond = new MemberSearchCondition();
+    MemberPagePrefetcher prefetcher;
+
+    @AfterEach
+    void tearDown() {
+        repository.gate.countDown();
+        if (prefetcher != null) {
+            prefetcher.shutdown();
+        }
+    }
+
+    @Test
+    void 미리_조회한_페이지는_count_쿼리_없이_total_을_재사용한다() throws InterruptedException {
+        prefetcher = prefetcher(properties());
+
+        prefetcher.searchPage(cond, PageRequest.of(0, 10));
+        repository.awaitContentQueries(1);
+        Page<MemberTeamDto> page = prefetcher.searchPage(cond, PageRequest.of(1, 10));
+
+        assertThat(page.getContent()).extracting(MemberTeamDto::getMemberId).startsWith(10L).hasSize(10);
+        assertThat(page.getTotalElements()).isEqualTo(TOTAL);
+        assertThat(repository.pageQueries).hasValue(1);
+    }
+
+    @Test
+    void TTL_이_지난_페이지는_쓰지_않는다() throws InterruptedException {
+        MemberPrefetchProperties properties = properties();
+        properties.setTtl(Duration.ofMillis(50));
+        prefetcher = prefetcher(properties);
+
+        prefetcher.searchPage(cond, PageRequest.of(0, 10));
+        repository.awaitContentQueries(1);
+        Thread.sleep(100);
+        prefetcher.searchPage(cond, PageRequest.of(1, 10));
+
+        assertThat(repository.pageQueries).hasValue(2);
+    }
+
+    @Test
+    void 캐시가_넘치면_가장_오래된_prefetch_를_취소한다() throws InterruptedException {
+        MemberPrefetchProperties properties = properties();
+        properties.setMaxEntries(1);
+        prefetcher = prefetcher(properties);
+        repository.gate = new CountDownLatch(1);
+        MemberSearchCondition other = new MemberSearchCondition();
+        other.setTeamName("teamB");
+
+        prefetcher.searchPage(cond, PageRequest.of(0, 10));
+        repository.awaitContentQueries(1);
+        prefetcher.searchPage(other, PageRequest.of(0, 10));
+        await(repository.interrupted, 1);
+        assertThat(repository.interrupted).hasValue(1);
+
+        prefetcher.searchPage(cond, PageRequest.of(1, 10));
+        assertThat(repository.pageQueries).hasValue(3);
+    }
+
+    @Test
+    void 데이터_버전이_바뀌면_미리_조회한_페이지를_쓰지_않는다() throws InterruptedException {
+        prefetcher = prefetcher(properties());
+
+        prefetcher.searchPage(cond, PageRequest.of(0, 10));
+        repository.awaitContentQueries(1);
+        versions.bump(List.of("Member"));
+        Page<MemberTeamDto> page = prefetcher.searchPage(cond, PageRequest.of(1, 10));
+
+        assertThat(page.getContent()).extracting(MemberTeamDto::getMemberId).startsWith(10L);
+        assertThat(repository.pageQueries).hasValue(2);
+    }
+
+    private static void await(AtomicInteger counter, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (counter.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private MemberPagePrefetcher prefetcher(MemberPrefetchProperties properties) {
+        MemberPagePrefetcher prefetcher = new MemberPagePrefetcher(repository, properties, versions);
+        prefetcher.init();
+        return prefetcher;
+    }
+
+    private static MemberPrefetchProperties properties() {
+        MemberPrefetchProperties properties = new MemberPrefetchProperties();
+        properties.setEnabled(true);
+        return properties;
+    }
+
+    /**
+     * searchPageComplex(content + count) 와 searchPageContent 호출 수를 센다.
+     * gate 를 닫아 두면 searchPageContent 가 끝나지 않고 기다린다.
+     */
+    static class FakeRepository implements MemberRepositoryCustom {
+
+        final AtomicInteger pageQueries = new AtomicInteger();
+        final AtomicInteger contentQueries = new AtomicInteger();
+        final AtomicInteger interrupted = new AtomicInteger();
+        volatile CountDownLatch gate = new CountDownLatch(0);
+
+        @Override
+        public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition cond, Pageable pageable) {
+            pageQueries.incrementAndGet();
+            return new PageImpl<>(rows(pageable), pageable, TOTAL);
+        }
+
+        @Override
+        public List<MemberTeamDto> searchPageContent(MemberSearchCondition cond, Pageable pageable) {
+            contentQueries.incrementAndGet();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                interrupted.incrementAndGet();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return rows(pageable);
+        }
+
+        void awaitContentQueries(int count) throws InterruptedException {
+            await(contentQueries, count);
+        }
+
+        private static List<MemberTeamDto> rows(Pageable pageable) {
+            List<MemberTeamDto> rows = new ArrayList<>();
+            for (long id = pageable.getOffset(); id < Math.min(TOTAL, pageable.getOffset() + pageable.getPageSize()); id++) {
+                rows.add(new MemberTeamDto(id, "member" + id, 10, null, null));
+            }
+            return rows;
+        }
+
+        @Override
+        public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition cond, Pageable pageable) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<MemberTeamDto> search(MemberSearchCondition cond) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<List<MemberTeamDto>> searchAll(List<MemberSearchCondition> conds) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * export 는 별도 스레드/커넥션에서 읽으므로 테스트 트랜잭션 없이 커밋된 데이터로 확인한다.
+ */
+@SpringBootTest(properties = "member.export.chunk-size=7")
+class MemberPartitionedExporterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @Autowired
+    MemberPartitionedExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        tx.executeWithoutResult(status -> {
+            Team team = new Team("해바라기반");
+            em.persist(team);
+            for (int i = 0; i < 50; i++) {
+                em.persist(new Member("member" + i, i, team));
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void ordered_export() {
+        List<MemberTeamDto> result;
+        try (Stream<MemberTeamDto> rows = exporter.export(4, true)) {
+            result = rows.collect(Collectors.toList());
+        }
+
+        assertThat(result).hasSize(50);
+        assertThat(result).extracting(MemberTeamDto::getMemberId).isSorted();
+        assertThat(result).extracting(MemberTeamDto::getTeamName).containsOnly("해바라기반");
+    }
+
+    @Test
+    void unordered_export() {
+        List<MemberTeamDto> result;
+        try (Stream<MemberTeamDto> rows = exporter.export(3, false)) {
+            result = rows.collect(Collectors.toList());
+        }
+
+        assertThat(result).extracting(MemberTeamDto::getUsername).hasSize(50).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void split() {
+        List<long[]> ranges = MemberPartitionedExporter.split(1, 10, 3);
+
+        assertThat(ranges).containsExactly(new long[]{1, 4}, new long[]{5, 8}, new long[]{9, 10});
+    }
+}
@@ -0,0 +1,127 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.repository.MemberQueryBudget.Endpoint.SEARCH;
+
+@SpringBootTest(properties = {
+        "member.query-budget.max-rows=3",
+        "member.query-budget.max-page-size=2"
+})
+@Transactional
+class MemberQueryBudgetTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository repository;
+
+    @Autowired
+    MemberQueryBudget budget;
+
+    @BeforeEach
+    void setUp() {
+        Team teamA = new Team("해바라기반");
+        Team teamB = new Team("장미반");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("짱구", 5, teamA));
+        em.persist(new Member("유리", 6, teamA));
+        em.persist(new Member("치타", 7, teamB));
+        em.persist(new Member("둘리", 8, teamB));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void search_최대_row_수_초과() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+
+        assertThatThrownBy(() -> repository.search(cond))
+                .isInstanceOf(QueryBudgetExceededException.class);
+    }
+
+    @Test
+    void search_최대_row_수_이내() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("해바라기반");
+
+        List<MemberTeamDto> result = repository.search(cond);
+
+        assertThat(result).extracting(MemberTeamDto::getUsername).containsExactly("짱구", "유리");
+    }
+
+    @Test
+    void searchAll_최대_row_수는_조건마다_적용한다() {
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("해바라기반");
+        MemberSearchCondition teamB = new MemberSearchCondition();
+        teamB.setTeamName("장미반");
+
+        List<List<MemberTeamDto>> result = repository.searchAll(List.of(teamA, teamB));
+
+        assertThat(result).extracting(List::size).containsExactly(2, 2);
+    }
+
+    @Test
+    void searchAll_조건_하나라도_최대_row_수를_넘으면_실패() {
+        MemberSearchCondition teamA = new MemberSearchCondition();
+        teamA.setTeamName("해바라기반");
+        MemberSearchCondition all = new MemberSearchCondition();
+        all.setAgeGoe(5);
+
+        assertThatThrownBy(() -> repository.searchAll(List.of(teamA, all)))
+                .isInstanceOf(QueryBudgetExceededException.class);
+    }
+
+    @Test
+    void searchPage_최대_페이지_크기_제한() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+
+        Page<MemberTeamDto> page = repository.searchPageComplex(cond, PageRequest.of(0, 1_000));
+
+        assertThat(page.getSize()).isEqualTo(2);
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(page.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void 마감이_1초_미만으로_남아도_timeout_hint_는_1초로_올린다() {
+        int hint = QueryDeadline.runWithin(Duration.ofMillis(300), () -> budget.timeoutHint(SEARCH));
+
+        assertThat(hint).isEqualTo(1_000);
+    }
+
+    @Test
+    void 마감이_지나면_503_으로_응답한다() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("해바라기반");
+
+        assertThatThrownBy(() -> QueryDeadline.runWithin(Duration.ofMillis(-1), () -> repository.search(cond)))
+                .isInstanceOf(QueryDeadlineExceededException.class);
+        assertThat(QueryDeadlineExceededException.class.getAnnotation(ResponseStatus.class).value())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
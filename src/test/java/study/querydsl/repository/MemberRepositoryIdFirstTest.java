@@ -0,0 +1,81 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.support.SqlBudget;
+import study.querydsl.support.SqlBudgetTest;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "member.repository.page-fetch=id-first")
+@SqlBudgetTest
+@Transactional
+class MemberRepositoryIdFirstTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        Team teamA = new Team("해바라기반");
+        Team teamB = new Team("장미반");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("짱구", 5, teamA));
+        em.persist(new Member("유리", 6, teamA));
+        em.persist(new Member("치타", 7, teamB));
+        em.persist(new Member("둘리", 8, teamB));
+        em.persist(new Member("무소속", 9));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @SqlBudget(statements = 3)
+    void id_로_먼저_페이징하고_순서를_되돌린다() {
+        Page<MemberTeamDto> page = repository.searchPageComplex(new MemberSearchCondition(),
+                PageRequest.of(0, 3, Sort.by(Sort.Order.desc("age"))));
+
+        assertThat(page.getContent()).extracting(MemberTeamDto::getUsername).containsExactly("무소속", "둘리", "치타");
+        assertThat(page.getContent()).extracting(MemberTeamDto::getTeamName).containsExactly(null, "장미반", "장미반");
+        assertThat(page.getTotalElements()).isEqualTo(5);
+    }
+
+    @Test
+    void 팀_조건과_팀_정렬() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("해바라기반");
+
+        Page<MemberTeamDto> byTeamName = repository.searchPageComplex(cond, PageRequest.of(0, 10));
+        Page<MemberTeamDto> sortedByTeam = repository.searchPageComplex(new MemberSearchCondition(),
+                PageRequest.of(1, 2, Sort.by(Sort.Order.asc("teamName"), Sort.Order.desc("age"))));
+
+        assertThat(byTeamName.getContent()).extracting(MemberTeamDto::getUsername).containsExactly("짱구", "유리");
+        assertThat(sortedByTeam.getContent()).extracting(MemberTeamDto::getUsername).containsExactly("치타", "유리");
+    }
+
+    @Test
+    @SqlBudget(statements = 2)
+    void 범위를_넘은_페이지는_행을_조회하지_않는다() {
+        Page<MemberTeamDto> page = repository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(5, 3));
+
+        assertThat(page.getContent()).isEmpty();
+    }
+}
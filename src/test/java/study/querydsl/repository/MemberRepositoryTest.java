@@ -5,12 +5,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.support.SqlBudget;
+import study.querydsl.support.SqlBudgetTest;
 
 import javax.persistence.EntityManager;
 import java.util.List;
@@ -18,6 +22,7 @@ import java.util.List;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
+@SqlBudgetTest
 @Transactional
 class MemberRepositoryTest {
 
@@ -52,6 +57,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @SqlBudget(statements = 1, rows = 2)
     void searchTest_다중_where() {
         MemberSearchCondition cond = new MemberSearchCondition();
         cond.setTeamName("해바라기반");
@@ -66,6 +72,7 @@ class MemberRepositoryTest {
 
 
     @Test
+    @SqlBudget(statements = 2)
     void searchPageTest_간단() {
         MemberSearchCondition cond = new MemberSearchCondition();
 
@@ -76,4 +83,67 @@ class MemberRepositoryTest {
         assertThat(result).extracting(MemberTeamDto::getAge).containsExactly(5, 6, 7);
         assertThat(result).extracting(MemberTeamDto::getTeamName).containsExactly("해바라기반", "해바라기반", "장미반");
     }
-}
\ No newline at end of file
+
+    @Test
+    @SqlBudget(statements = 2, countQueries = 1, rows = 4)
+    void searchPageTest_정렬() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+
+        Page<MemberTeamDto> page = repository.searchPageComplex(cond,
+                PageRequest.of(0, 3, Sort.by(Sort.Order.asc("teamName"), Sort.Order.desc("age"))));
+
+        assertThat(page.getContent()).extracting(MemberTeamDto::getUsername).containsExactly("둘리", "치타", "유리");
+        assertThat(page.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    @SqlBudget(statements = 1, countQueries = 0)
+    void searchPageTest_마지막_페이지는_count_없음() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+
+        Page<MemberTeamDto> page = repository.searchPageComplex(cond, PageRequest.of(1, 3));
+
+        assertThat(page.getContent()).extracting(MemberTeamDto::getUsername).containsExactly("둘리");
+        assertThat(page.getTotalElements()).isEqualTo(4);
+    }
+
+    @Test
+    void searchPageTest_허용되지_않은_정렬은_무시() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+
+        Page<MemberTeamDto> page = repository.searchPageComplex(cond,
+                PageRequest.of(0, 3, Sort.by("team.members")));
+
+        assertThat(page.getContent()).extracting(MemberTeamDto::getUsername).containsExactly("짱구", "유리", "치타");
+    }
+
+    @Test
+    @SqlBudget(statements = 1)
+    void searchAllTest_팀별() {
+        MemberSearchCondition condA = new MemberSearchCondition();
+        condA.setTeamName("해바라기반");
+        MemberSearchCondition condB = new MemberSearchCondition();
+        condB.setTeamName("장미반");
+
+        List<List<MemberTeamDto>> result = repository.searchAll(List.of(condA, condB));
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0)).extracting(MemberTeamDto::getUsername).containsExactly("짱구", "유리");
+        assertThat(result.get(1)).extracting(MemberTeamDto::getUsername).containsExactly("치타", "둘리");
+    }
+
+    @Test
+    @SqlBudget(statements = 1)
+    void searchAllTest_나이대별() {
+        MemberSearchCondition young = new MemberSearchCondition();
+        young.setAgeLoe(6);
+        MemberSearchCondition old = new MemberSearchCondition();
+        old.setAgeGoe(6);
+        old.setTeamName("장미반");
+
+        List<List<MemberTeamDto>> result = repository.searchAll(List.of(young, old));
+
+        assertThat(result.get(0)).extracting(MemberTeamDto::getUsername).containsExactly("짱구", "유리");
+        assertThat(result.get(1)).extracting(MemberTeamDto::getUsername).containsExactly("치타", "둘리");
+    }
+}
@@ -0,0 +1,129 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.sql.SMember.member;
+import static study.querydsl.sql.STeam.team;
+
+@SpringBootTest(properties = {
+        "member.sharding.shards[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1",
+        "member.sharding.shards[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "member.sharding.shards[2].url=jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1"
+})
+class MemberShardedRepositoryTest {
+
+    @Autowired
+    MemberShards shards;
+
+    @Autowired
+    MemberShardedRepository repository;
+
+    List<MemberTeamDto> all = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < shards.size(); i++) {
+            shards.shard(i).delete(member).execute();
+            shards.shard(i).delete(team).execute();
+        }
+        String[] teams = {"해바라기반", "장미반", "백합반", "국화반"};
+        for (int t = 0; t < teams.length; t++) {
+            shards.saveTeam(t + 1, teams[t]);
+        }
+        for (int i = 0; i < 40; i++) {
+            long teamId = i % 4 + 1;
+            shards.saveMember(100 + i, "member" + i % 7, i % 10, teamId);
+            all.add(new MemberTeamDto(100L + i, "member" + i % 7, i % 10, teamId, teams[(int) teamId - 1]));
+        }
+        shards.saveMember(200, "무소속", 3, null);
+        all.add(new MemberTeamDto(200L, "무소속", 3, null, null));
+    }
+
+    @Test
+    void 팀_이름_조건은_한_shard_로() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("장미반");
+
+        assertThat(repository.route(cond)).containsExactly(shards.shardOf(2L));
+        assertThat(repository.search(cond))
+                .hasSize(10)
+                .allMatch(row -> "장미반".equals(row.getTeamName()));
+    }
+
+    @Test
+    void 없는_팀_이름은_조회하지_않는다() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("없는반");
+
+        assertThat(repository.route(cond)).isEmpty();
+        assertThat(repository.search(cond)).isEmpty();
+    }
+
+    @Test
+    void 조건이_없으면_모든_shard() {
+        assertThat(repository.search(new MemberSearchCondition()))
+                .extracting(MemberTeamDto::getMemberId)
+                .containsExactlyInAnyOrderElementsOf(all.stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void 여러_shard_페이지는_정렬을_합치고_count_는_합한다() {
+        Sort sort = Sort.by(Sort.Order.desc("age"), Sort.Order.asc("username"));
+        Comparator<MemberTeamDto> expectedOrder = Comparator.comparing(MemberTeamDto::getAge).reversed()
+                .thenComparing(MemberTeamDto::getUsername)
+                .thenComparing(MemberTeamDto::getMemberId);
+        List<MemberTeamDto> expected = all.stream().sorted(expectedOrder).collect(Collectors.toList());
+
+        Page<MemberTeamDto> page = repository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(2, 7, sort));
+
+        assertThat(page.getTotalElements()).isEqualTo(all.size());
+        assertThat(page.getContent()).containsExactlyElementsOf(expected.subList(14, 21));
+    }
+
+    @Test
+    void 여러_shard_의_깊은_페이지는_거절한다() {
+        PageRequest deep = PageRequest.of(100_000, 20);
+
+        assertThatThrownBy(() -> repository.searchPageComplex(new MemberSearchCondition(), deep))
+                .isInstanceOf(QueryBudgetExceededException.class);
+    }
+
+    @Test
+    void searchAll_은_조건별로_나눈다() {
+        MemberSearchCondition rose = new MemberSearchCondition();
+        rose.setTeamName("장미반");
+        MemberSearchCondition young = new MemberSearchCondition();
+        young.setAgeLoe(0);
+
+        List<List<MemberTeamDto>> result = repository.searchAll(List.of(rose, young));
+
+        assertThat(result.get(0)).hasSize(10);
+        assertThat(result.get(1)).extracting(MemberTeamDto::getAge).containsOnly(0);
+        assertThat(result.get(1)).hasSize(4);
+    }
+
+    @Test
+    void 팀이_바뀌면_shard_를_옮긴다() {
+        shards.saveMember(200, "무소속", 3, 3L);
+
+        for (int i = 0; i < shards.size(); i++) {
+            List<Long> ids = shards.shard(i).select(member.id).from(member).where(member.id.eq(200L)).fetch();
+            assertThat(ids).hasSize(i == shards.shardOf(3L) ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydsl.repository;
+
+import com.querydsl.sql.RelationalPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.sql.SMember;
+import study.querydsl.sql.STeam;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSqlRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSqlRepository repository;
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        Team teamA = new Team("해바라기반");
+        Team teamB = new Team("장미반");
+
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("짱구", 5, teamA));
+        em.persist(new Member("유리", 6, teamA));
+        em.persist(new Member("치타", 7, teamB));
+        em.persist(new Member("둘리", 8, teamB));
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    void S_메타데이터의_컬럼은_스키마와_같다() {
+        assertThat(columns(SMember.member)).containsExactlyInAnyOrderElementsOf(schemaColumns("MEMBER"));
+        assertThat(columns(STeam.team)).containsExactlyInAnyOrderElementsOf(schemaColumns("TEAM"));
+    }
+
+    @Test
+    void searchTest_다중_where() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName("해바라기반");
+        cond.setAgeLoe(10);
+
+        List<MemberTeamDto> result = repository.search(cond);
+
+        assertThat(result).extracting(MemberTeamDto::getUsername).containsExactly("짱구", "유리");
+        assertThat(result).extracting(MemberTeamDto::getTeamName).containsExactly("해바라기반", "해바라기반");
+    }
+
+    @Test
+    void searchPageTest_정렬() {
+        MemberSearchCondition cond = new MemberSearchCondition();
+
+        Page<MemberTeamDto> page = repository.searchPageComplex(cond, PageRequest.of(0, 3, Sort.by(Sort.Order.desc("age"))));
+
+        assertThat(page.getContent()).extracting(MemberTeamDto::getUsername).containsExactly("둘리", "치타", "유리");
+        assertThat(page.getTotalElements()).isEqualTo(4);
+    }
+
+    private static List<String> columns(RelationalPath<?> table) {
+        return table.getColumns().stream()
+                .map(column -> table.getMetadata(column).getName())
+                .collect(Collectors.toList());
+    }
+
+    private List<String> schemaColumns(String table) {
+        return jdbc.queryForList("select column_name from information_schema.columns where table_schema = 'PUBLIC' and table_name = ?",
+                String.class, table);
+    }
+}
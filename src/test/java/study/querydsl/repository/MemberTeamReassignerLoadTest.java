@@ -0,0 +1,119 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 소수의 회원을 여러 스레드가 계속 옮길 때 낙관적 락(재시도)과 비관적 락의 처리량을 비교한다.
+ * HOT_MEMBERS 를 늘리면 경합이 줄어든다.
+ * ./gradlew loadTest
+ */
+@Tag("load")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reassign-load;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "decorator.datasource.p6spy.enable-logging=false",
+        "spring.datasource.hikari.maximum-pool-size=16",
+        "member.outbox.enabled=false",
+        "member.reassign.max-attempts=50"
+})
+class MemberTeamReassignerLoadTest {
+
+    static final int THREADS = 16;
+    static final int MOVES_PER_THREAD = 200;
+    static final int HOT_MEMBERS = 4;
+    static final int TEAM_COUNT = 4;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @Autowired
+    MemberTeamReassigner reassigner;
+
+    @Autowired
+    MeterRegistry registry;
+
+    List<Long> memberIds = new ArrayList<>();
+    List<Long> teamIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        tx.executeWithoutResult(status -> {
+            for (int i = 0; i < TEAM_COUNT; i++) {
+                Team team = new Team("team" + i);
+                em.persist(team);
+                teamIds.add(team.getId());
+            }
+            for (int i = 0; i < HOT_MEMBERS; i++) {
+                Member member = new Member("member" + i, i, em.find(Team.class, teamIds.get(0)));
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+        });
+    }
+
+    @Test
+    void optimistic_vs_pessimistic() throws Exception {
+        run("pessimistic", reassigner::reassignLocked);
+
+        double retriesBefore = registry.counter("member.reassign.retries").count();
+        run("optimistic", reassigner::reassign);
+        System.out.printf("[optimistic] retries %.0f%n", registry.counter("member.reassign.retries").count() - retriesBefore);
+    }
+
+    private void run(String name, Move move) throws Exception {
+        AtomicLong failures = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < MOVES_PER_THREAD; i++) {
+                        try {
+                            move.apply(memberIds.get(random.nextInt(HOT_MEMBERS)), teamIds.get(random.nextInt(TEAM_COUNT)));
+                        } catch (RuntimeException e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int total = THREADS * MOVES_PER_THREAD;
+        System.out.printf("[%s] %d threads, %d hot members: %.0f moves/s, %d failed%n",
+                name, THREADS, HOT_MEMBERS, (total - failures.get()) / seconds, failures.get());
+        assertThat(failures.get()).isLessThan(total);
+    }
+
+    @FunctionalInterface
+    interface Move {
+        void apply(Long memberId, Long teamId);
+    }
+}
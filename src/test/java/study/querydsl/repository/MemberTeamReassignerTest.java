@@ -0,0 +1,178 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 커밋 시점의 버전 충돌을 봐야 하므로 테스트 트랜잭션 없이 확인한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reassign;DB_CLOSE_DELAY=-1",
+        "decorator.datasource.p6spy.enable-logging=false",
+        "member.reassign.max-attempts=100",
+        "member.reassign.initial-backoff=1ms",
+        "member.reassign.max-backoff=20ms"
+})
+class MemberTeamReassignerTest {
+
+    static final int THREADS = 8;
+    static final int MOVES_PER_THREAD = 10;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberTeamReassigner reassigner;
+
+    @Autowired
+    MeterRegistry registry;
+
+    Long memberId;
+    List<Long> teamIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        tx.executeWithoutResult(status -> {
+            for (String name : List.of("해바라기반", "장미반", "백합반")) {
+                Team team = new Team(name);
+                em.persist(team);
+                teamIds.add(team.getId());
+            }
+            Member member = new Member("짱구", 5, em.find(Team.class, teamIds.get(0)));
+            em.persist(member);
+            memberId = member.getId();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    void 다른_트랜잭션이_먼저_바꾸면_커밋에서_충돌한다() {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        assertThatThrownBy(() -> tx.executeWithoutResult(status -> {
+            Member stale = em.find(Member.class, memberId);
+            requiresNew.executeWithoutResult(inner -> reassignInCurrentTransaction(teamIds.get(1)));
+            stale.changeTeam(em.getReference(Team.class, teamIds.get(2)));
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(teamOf(memberId)).isEqualTo(teamIds.get(1));
+    }
+
+    @Test
+    void 팀을_옮기면_회원_version_만_오른다() {
+        long teamVersion = tx.execute(status -> em.find(Team.class, teamIds.get(1)).getVersion());
+
+        assertThat(reassigner.reassign(memberId, teamIds.get(1))).isEqualTo(1);
+
+        tx.executeWithoutResult(status -> {
+            assertThat(em.find(Member.class, memberId).getVersion()).isEqualTo(1L);
+            assertThat(em.find(Team.class, teamIds.get(1)).getVersion()).isEqualTo(teamVersion);
+        });
+    }
+
+    @Test
+    void 같은_팀으로_옮기면_version_이_그대로다() {
+        double unchanged = unchanged();
+
+        assertThat(reassigner.reassign(memberId, teamIds.get(0))).isEqualTo(1);
+
+        assertThat(unchanged()).isEqualTo(unchanged + 1);
+        assertThat(tx.execute(status -> em.find(Member.class, memberId).getVersion())).isZero();
+    }
+
+    /**
+     * 다른 스레드가 이미 같은 팀으로 옮겨 둔 경우는 바뀌지 않으므로, version 은 실제로 바뀐 횟수만큼 오른다.
+     */
+    @Test
+    void 동시에_옮겨도_재시도로_모두_반영된다() throws Exception {
+        double unchanged = unchanged();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> attempts = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                attempts.add(executor.submit(() -> {
+                    int sum = 0;
+                    for (int i = 0; i < MOVES_PER_THREAD; i++) {
+                        sum += reassigner.reassign(memberId, teamIds.get((thread + i) % teamIds.size()));
+                    }
+                    return sum;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> attempt : attempts) {
+                total += attempt.get();
+            }
+            assertThat(total).isGreaterThanOrEqualTo(THREADS * MOVES_PER_THREAD);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Long version = tx.execute(status -> em.find(Member.class, memberId).getVersion());
+        long changes = THREADS * MOVES_PER_THREAD - (long) (unchanged() - unchanged);
+        assertThat(changes).isPositive();
+        assertThat(version).isEqualTo(changes);
+    }
+
+    @Test
+    void 트랜잭션_안에서_부르면_거절한다() {
+        assertThatThrownBy(() -> tx.executeWithoutResult(status -> reassigner.reassign(memberId, teamIds.get(1))))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(teamOf(memberId)).isEqualTo(teamIds.get(0));
+    }
+
+    @Test
+    void backoff_는_상한_안에서_흩어진다() {
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long cap = Math.min(20, 1L << (attempt - 1));
+            assertThat(reassigner.backoffMillis(attempt)).isBetween(0L, cap);
+        }
+    }
+
+    private void reassignInCurrentTransaction(Long teamId) {
+        em.find(Member.class, memberId).changeTeam(em.getReference(Team.class, teamId));
+    }
+
+    private double unchanged() {
+        return registry.counter("member.reassign.unchanged").count();
+    }
+
+    private Long teamOf(Long id) {
+        return tx.execute(status -> em.find(Member.class, id).getTeam().getId());
+    }
+}
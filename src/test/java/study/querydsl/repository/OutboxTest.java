@@ -0,0 +1,197 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.OutboxEvent;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QOutboxEvent.outboxEvent;
+
+/**
+ * outbox 는 커밋 여부에 따라 남거나 사라져야 하므로 테스트 트랜잭션 없이 확인한다.
+ */
+@SpringBootTest
+class OutboxTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @Autowired
+    JPAQueryFactory query;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    OutboxDispatcher dispatcher;
+
+    @MockBean
+    OutboxPublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+            query.delete(outboxEvent).execute();
+        });
+    }
+
+    @Test
+    void save_와_changeTeam_이_같은_트랜잭션에서_outbox_에_쓰인다() {
+        Long memberId = tx.execute(status -> {
+            Member member = new Member("짱구", 5);
+            memberJpaRepository.save(member);
+            return member.getId();
+        });
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("해바라기반");
+            em.persist(team);
+            em.find(Member.class, memberId).changeTeam(team);
+            return team.getId();
+        });
+
+        List<OutboxEvent> events = outbox();
+        assertThat(events).extracting(OutboxEvent::getEventType)
+                .containsExactly("Member.INSERT", "Team.INSERT", "Member.UPDATE");
+        assertThat(events.get(2).getAggregateId()).isEqualTo(memberId);
+        assertThat(events.get(2).getPayload()).contains("\"teamId\":" + teamId);
+    }
+
+    @Test
+    void 롤백되면_outbox_도_사라진다() {
+        tx.executeWithoutResult(status -> {
+            memberJpaRepository.save(new Member("짱구", 5));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(outbox()).isEmpty();
+    }
+
+    @Test
+    void dispatch_성공하면_dispatchedAt() throws Exception {
+        List<Long> published = recordPublished();
+        tx.executeWithoutResult(status -> {
+            memberJpaRepository.save(new Member("짱구", 5));
+            memberJpaRepository.save(new Member("철수", 5));
+        });
+
+        assertThat(dispatcher.dispatchBatch()).isEqualTo(2);
+
+        assertThat(published).hasSize(2);
+        assertThat(outbox()).allMatch(event -> event.getDispatchedAt() != null);
+        assertThat(dispatcher.dispatchBatch()).isZero();
+    }
+
+    @Test
+    void 실패하면_backoff_하고_같은_aggregate_의_뒤_이벤트는_보내지_않는다() throws Exception {
+        doAnswer(invocation -> {
+            throw new IllegalStateException("broker down");
+        }).when(publisher).publish(any());
+        Long memberId = tx.execute(status -> {
+            Member member = new Member("짱구", 5);
+            memberJpaRepository.save(member);
+            return member.getId();
+        });
+
+        dispatcher.dispatchBatch();
+
+        OutboxEvent failed = outbox().get(0);
+        assertThat(failed.getAttempts()).isEqualTo(1);
+        assertThat(failed.getNextAttemptAt()).isGreaterThan(System.currentTimeMillis());
+        assertThat(failed.getDispatchedAt()).isNull();
+
+        List<Long> published = recordPublished();
+        Long otherId = tx.execute(status -> {
+            Team team = new Team("해바라기반");
+            em.persist(team);
+            em.find(Member.class, memberId).changeTeam(team);
+            Member other = new Member("철수", 5);
+            memberJpaRepository.save(other);
+            return other.getId();
+        });
+
+        dispatcher.dispatchBatch();
+
+        assertThat(outbox())
+                .filteredOn(event -> event.getDispatchedAt() != null)
+                .extracting(OutboxEvent::getEventType, OutboxEvent::getAggregateId)
+                .containsExactlyInAnyOrder(
+                        tuple("Team.INSERT", otherTeamId()),
+                        tuple("Member.INSERT", otherId));
+        assertThat(outbox())
+                .filteredOn(event -> memberId.equals(event.getAggregateId()) && "Member".equals(event.getAggregateType()))
+                .allMatch(event -> event.getDispatchedAt() == null);
+        assertThat(published).doesNotContain(failed.getId());
+    }
+
+    @Test
+    void bulk_이벤트도_앞의_bulk_이벤트가_backoff_중이면_보내지_않는다() throws Exception {
+        tx.executeWithoutResult(status -> memberJpaRepository.save(new Member("짱구", 5)));
+        dispatcher.dispatchBatch();
+
+        doAnswer(invocation -> {
+            throw new IllegalStateException("broker down");
+        }).when(publisher).publish(any());
+        tx.executeWithoutResult(status -> query.update(member).set(member.age, 6).execute());
+        dispatcher.dispatchBatch();
+
+        List<Long> published = recordPublished();
+        tx.executeWithoutResult(status -> query.update(member).set(member.age, 7).execute());
+        dispatcher.dispatchBatch();
+
+        assertThat(published).isEmpty();
+        assertThat(outbox())
+                .filteredOn(event -> event.getAggregateId() == null)
+                .hasSize(2)
+                .allMatch(event -> event.getDispatchedAt() == null);
+    }
+
+    @Test
+    void backoff_는_지수적으로_늘고_최대값에서_멈춘다() {
+        assertThat(dispatcher.backoffMillis(1)).isBetween(800L, 1_200L);
+        assertThat(dispatcher.backoffMillis(3)).isBetween(3_200L, 4_800L);
+        assertThat(dispatcher.backoffMillis(20)).isBetween(48_000L, 72_000L);
+    }
+
+    private List<Long> recordPublished() throws Exception {
+        List<Long> published = new ArrayList<>();
+        doAnswer(invocation -> {
+            synchronized (published) {
+                published.add(invocation.<OutboxEvent>getArgument(0).getId());
+            }
+            return null;
+        }).when(publisher).publish(any());
+        return published;
+    }
+
+    private Long otherTeamId() {
+        return query.select(outboxEvent.aggregateId)
+                .from(outboxEvent)
+                .where(outboxEvent.eventType.eq("Team.INSERT"))
+                .fetchOne();
+    }
+
+    private List<OutboxEvent> outbox() {
+        return query.selectFrom(outboxEvent).orderBy(outboxEvent.id.asc()).fetch();
+    }
+}
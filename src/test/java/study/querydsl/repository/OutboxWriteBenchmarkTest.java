@@ -0,0 +1,70 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.config.MemberOutboxProperties;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+
+/**
+ * member 저장 트랜잭션 하나당 outbox 를 쓰지 않을 때와 쓸 때의 비용을 비교한다.
+ * ./gradlew benchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bench-outbox;DB_CLOSE_DELAY=-1",
+        "decorator.datasource.p6spy.enable-logging=false",
+        "member.outbox.dispatch-enabled=false"
+})
+class OutboxWriteBenchmarkTest {
+
+    static final int TRANSACTIONS = 5_000;
+    static final int ROUNDS = 5;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate tx;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberOutboxProperties properties;
+
+    @Test
+    void save_와_changeTeam() {
+        Long teamId = tx.execute(status -> {
+            Team team = new Team("team");
+            em.persist(team);
+            return team.getId();
+        });
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long plain = run(false, teamId);
+            long outbox = run(true, teamId);
+            System.out.printf("[round %d] plain %d us/tx, outbox %d us/tx (+%.0f%%)%n", round,
+                    plain / 1_000, outbox / 1_000, (outbox - plain) * 100.0 / plain);
+        }
+        properties.setEnabled(true);
+    }
+
+    private long run(boolean outbox, Long teamId) {
+        properties.setEnabled(outbox);
+        long start = System.nanoTime();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            tx.executeWithoutResult(status -> {
+                Member member = new Member("member", 10);
+                memberJpaRepository.save(member);
+                member.changeTeam(em.getReference(Team.class, teamId));
+            });
+        }
+        return (System.nanoTime() - start) / TRANSACTIONS;
+    }
+}
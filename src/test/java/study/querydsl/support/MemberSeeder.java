@@ -0,0 +1,47 @@
+package study.querydsl.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크/부하 테스트용 데이터를 JDBC batch 로 넣는다. 이미 members 건 이상 있으면 넣지 않는다.
+ * team i (0부터) 는 id i + 1, 이름 team{i}. member i 는 id teams + i + 1, 이름 member{i}, age i % 100, team i % teams.
+ */
+public final class MemberSeeder {
+
+    static final int BATCH_SIZE = 10_000;
+
+    private MemberSeeder() {
+    }
+
+    public static void seed(JdbcTemplate jdbc, int teams, int members) {
+        Integer count = jdbc.queryForObject("select count(*) from member", Integer.class);
+        if (count != null && count >= members) {
+            return;
+        }
+        List<Object[]> teamRows = new ArrayList<>();
+        for (long i = 0; i < teams; i++) {
+            teamRows.add(new Object[]{i + 1, "team" + i});
+        }
+        jdbc.batchUpdate("insert into team (id, name) values (?, ?)", teamRows);
+
+        List<Object[]> memberRows = new ArrayList<>();
+        for (long i = 0; i < members; i++) {
+            memberRows.add(new Object[]{teams + i + 1, "member" + i, (int) (i % 100), i % teams + 1});
+            if (memberRows.size() == BATCH_SIZE) {
+                insertMembers(jdbc, memberRows);
+            }
+        }
+        insertMembers(jdbc, memberRows);
+    }
+
+    private static void insertMembers(JdbcTemplate jdbc, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbc.batchUpdate("insert into member (id, username, age, team_id) values (?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+}
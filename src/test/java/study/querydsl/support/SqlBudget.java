@@ -0,0 +1,33 @@
+package study.querydsl.support;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 하나가 실행하는 SQL 의 상한. 음수는 검사하지 않는다.
+ * {@link SqlBudgetTest} 가 붙은 클래스에서만 동작하고, 메서드에 붙은 값이 클래스에 붙은 값보다 우선한다.
+ * 준비 단계의 SQL 을 빼려면 준비가 끝난 뒤 {@link SqlStatementRecorder#restart()} 를 부른다.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    /**
+     * 실행한 statement 수 (batch 는 한 번)
+     */
+    int statements() default -1;
+
+    /**
+     * select count( 로 시작하는 statement 수
+     */
+    int countQueries() default -1;
+
+    /**
+     * ResultSet 에서 읽은 행 수
+     */
+    long rows() default -1;
+
+    long millis() default -1;
+}
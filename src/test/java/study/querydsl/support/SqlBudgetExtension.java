@@ -0,0 +1,63 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.AssertionFailedError;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @BeforeEach 가 끝난 뒤부터 테스트 메서드가 끝날 때까지 기록한다.
+ * 테스트가 이미 실패했으면 예산은 따로 보고하지 않는다.
+ */
+public class SqlBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        recorder(context).start();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatementRecorder recorder = recorder(context);
+        long elapsed = recorder.elapsedMillis();
+        recorder.stop();
+
+        SqlBudget budget = budget(context);
+        if (budget == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+
+        List<String> exceeded = new ArrayList<>();
+        check(exceeded, "statements", recorder.statements(), budget.statements());
+        check(exceeded, "count queries", recorder.countQueries(), budget.countQueries());
+        check(exceeded, "rows", recorder.rows(), budget.rows());
+        check(exceeded, "millis", elapsed, budget.millis());
+        if (!exceeded.isEmpty()) {
+            throw new AssertionFailedError("SQL budget exceeded: " + String.join(", ", exceeded)
+                    + "\n  " + String.join("\n  ", recorder.sql()));
+        }
+    }
+
+    private static void check(List<String> exceeded, String name, long actual, long limit) {
+        if (limit >= 0 && actual > limit) {
+            exceeded.add(name + " " + actual + " > " + limit);
+        }
+    }
+
+    private static SqlBudget budget(ExtensionContext context) {
+        SqlBudget budget = AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestMethod(), SqlBudget.class);
+        if (budget != null) {
+            return budget;
+        }
+        return AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestClass(), SqlBudget.class);
+    }
+
+    private static SqlStatementRecorder recorder(ExtensionContext context) {
+        return SpringExtension.getApplicationContext(context).getBean(SqlStatementRecorder.class);
+    }
+}
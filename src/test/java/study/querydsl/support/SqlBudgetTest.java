@@ -0,0 +1,19 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.context.annotation.Import;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * p6spy 로 테스트 중 실행된 SQL 을 세고 {@link SqlBudget} 을 넘으면 테스트를 실패시킨다. @SpringBootTest 와 함께 쓴다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlBudgetExtension.class)
+@Import(SqlStatementRecorder.class)
+public @interface SqlBudgetTest {
+}
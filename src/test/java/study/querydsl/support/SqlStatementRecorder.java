@@ -0,0 +1,96 @@
+package study.querydsl.support;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 기록 중에 실행된 statement, count 쿼리, 읽은 행 수를 센다. 다른 스레드(loader, executor)에서 실행된 SQL 도 포함한다.
+ */
+public class SqlStatementRecorder extends SimpleJdbcEventListener {
+
+    static final int MAX_RECORDED_SQL = 50;
+
+    private volatile boolean recording;
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicInteger countQueries = new AtomicInteger();
+    private final AtomicLong rows = new AtomicLong();
+    private final List<String> sql = new ArrayList<>();
+    private volatile long startedAt;
+
+    void start() {
+        restart();
+        recording = true;
+    }
+
+    void stop() {
+        recording = false;
+    }
+
+    /**
+     * 지금까지 센 것을 버리고 시간도 다시 잰다.
+     */
+    public void restart() {
+        statements.set(0);
+        countQueries.set(0);
+        rows.set(0);
+        synchronized (sql) {
+            sql.clear();
+        }
+        startedAt = System.nanoTime();
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (!recording || statementInformation.getSql() == null) {
+            return;
+        }
+        statements.incrementAndGet();
+        String statement = statementInformation.getSql().trim();
+        if (statement.toLowerCase(Locale.ROOT).startsWith("select count(")) {
+            countQueries.incrementAndGet();
+        }
+        synchronized (sql) {
+            if (sql.size() < MAX_RECORDED_SQL) {
+                sql.add(statement);
+            }
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext,
+                                     SQLException e) {
+        if (recording && hasNext) {
+            rows.incrementAndGet();
+        }
+    }
+
+    public int statements() {
+        return statements.get();
+    }
+
+    public int countQueries() {
+        return countQueries.get();
+    }
+
+    public long rows() {
+        return rows.get();
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - startedAt) / 1_000_000;
+    }
+
+    public List<String> sql() {
+        synchronized (sql) {
+            return List.copyOf(sql);
+        }
+    }
+}